@@ -18,8 +18,11 @@
 package codecrafter47.bungeetablistplus.api.bukkit;
 
 import com.google.common.base.Preconditions;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
+import java.util.concurrent.TimeUnit;
+
 public abstract class BungeeTabListPlusBukkitAPI {
     private static BungeeTabListPlusBukkitAPI instance;
 
@@ -92,4 +95,82 @@ public abstract class BungeeTabListPlusBukkitAPI {
     }
 
     protected abstract void unregisterVariables0(Plugin plugin);
+
+    /**
+     * Notifies BungeeTabListPlus that the replacement of a variable has changed for a player.
+     * <p>
+     * The new replacement is sent to the proxy as soon as possible instead of waiting for
+     * the next periodic update.
+     *
+     * @param player   the player
+     * @param variable the variable
+     */
+    public static void requestUpdate(Player player, Variable variable) {
+        Preconditions.checkState(instance != null, "instance is null, is the plugin enabled?");
+        instance.requestUpdate0(player, variable);
+    }
+
+    protected abstract void requestUpdate0(Player player, Variable variable);
+
+    /**
+     * Notifies BungeeTabListPlus that the replacement of a per server variable has changed.
+     * <p>
+     * The new replacement is sent to the proxy as soon as possible instead of waiting for
+     * the next periodic update.
+     *
+     * @param variable the variable
+     */
+    public static void requestUpdate(ServerVariable variable) {
+        Preconditions.checkState(instance != null, "instance is null, is the plugin enabled?");
+        instance.requestUpdate0(variable);
+    }
+
+    protected abstract void requestUpdate0(ServerVariable variable);
+
+    /**
+     * Sets the minimum interval between two periodic invocations of {@link Variable#getReplacement}.
+     * <p>
+     * By default the replacement is queried every second. Variables which are expensive to
+     * compute or which use {@link #requestUpdate(Player, Variable)} to notify about changes can
+     * use a longer interval.
+     *
+     * @param variable the variable
+     * @param interval the minimum interval, zero to restore the default
+     * @param unit     time unit of the interval
+     */
+    public static void setUpdateInterval(Variable variable, long interval, TimeUnit unit) {
+        Preconditions.checkState(instance != null, "instance is null, is the plugin enabled?");
+        instance.setUpdateInterval0(variable, interval, unit);
+    }
+
+    protected abstract void setUpdateInterval0(Variable variable, long interval, TimeUnit unit);
+
+    /**
+     * Sets the minimum interval between two periodic invocations of {@link ServerVariable#getReplacement}.
+     *
+     * @param variable the variable
+     * @param interval the minimum interval, zero to restore the default
+     * @param unit     time unit of the interval
+     * @see #setUpdateInterval(Variable, long, TimeUnit)
+     */
+    public static void setUpdateInterval(ServerVariable variable, long interval, TimeUnit unit) {
+        Preconditions.checkState(instance != null, "instance is null, is the plugin enabled?");
+        instance.setUpdateInterval0(variable, interval, unit);
+    }
+
+    protected abstract void setUpdateInterval0(ServerVariable variable, long interval, TimeUnit unit);
+
+    /**
+     * Sets the minimum interval between two updates of a PlaceholderAPI placeholder.
+     *
+     * @param placeholder the placeholder, including the surrounding % characters
+     * @param interval    the minimum interval, zero to restore the default
+     * @param unit        time unit of the interval
+     */
+    public static void setPlaceholderAPIUpdateInterval(String placeholder, long interval, TimeUnit unit) {
+        Preconditions.checkState(instance != null, "instance is null, is the plugin enabled?");
+        instance.setPlaceholderAPIUpdateInterval0(placeholder, interval, unit);
+    }
+
+    protected abstract void setPlaceholderAPIUpdateInterval0(String placeholder, long interval, TimeUnit unit);
 }
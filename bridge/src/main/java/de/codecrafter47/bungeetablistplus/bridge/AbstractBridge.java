@@ -19,6 +19,11 @@ package de.codecrafter47.bungeetablistplus.bridge;
 
 import codecrafter47.bungeetablistplus.common.network.BridgeProtocolConstants;
 import codecrafter47.bungeetablistplus.common.network.DataStreamUtils;
+import codecrafter47.bungeetablistplus.common.network.DeltaCodec;
+import codecrafter47.bungeetablistplus.common.network.DeltaTypeAdapter;
+import codecrafter47.bungeetablistplus.common.network.MessageWriter;
+import codecrafter47.bungeetablistplus.common.network.StringDictionary;
+import codecrafter47.bungeetablistplus.common.network.TypeAdapter;
 import codecrafter47.bungeetablistplus.common.network.TypeAdapterRegistry;
 import de.codecrafter47.data.api.*;
 
@@ -30,9 +35,14 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class AbstractBridge<Player, Server> {
 
+    private static final int MIN_PLAYERS_PER_UPDATE_TASK = 16;
+
     @Nonnull
     private final DataKeyRegistry dataKeyRegistry;
     @Nonnull
@@ -49,7 +59,16 @@ public abstract class AbstractBridge<Player, Server> {
 
     private final Map<Integer, BridgeData> serverBridgeDataMap = new ConcurrentHashMap<>();
 
-    private final Object updateDataLock = new Object();
+    private volatile int updateParallelism = 1;
+    private final AtomicInteger pendingUpdateTasks = new AtomicInteger(0);
+
+    private final Map<DataKey<?>, Long> refreshIntervals = new ConcurrentHashMap<>();
+    private final AtomicInteger refreshIntervalsVersion = new AtomicInteger(0);
+
+    private final Map<DataKey<?>, SyncPolicy> syncPolicies = new ConcurrentHashMap<>();
+    private final AtomicInteger syncPoliciesVersion = new AtomicInteger(0);
+
+    private final AtomicBoolean serverUpdateScheduled = new AtomicBoolean(false);
 
     @Nonnull
     private DataAccess<Player> playerDataAccess = JoinedDataAccess.of(); // always returns null
@@ -108,17 +127,18 @@ public abstract class AbstractBridge<Player, Server> {
             connectionInfo.protocolVersion = Integer.min(BridgeProtocolConstants.VERSION, protocolVersion);
             connectionInfo.proxyIdentifier = proxyIdentifier;
             connectionInfo.playerBridgeData = new BridgeData();
+            connectionInfo.playerBridgeData.protocolVersion = connectionInfo.protocolVersion;
             connectionInfo.serverBridgeData = serverBridgeDataMap.computeIfAbsent(proxyIdentifier, key -> new BridgeData());
+            connectionInfo.serverBridgeData.protocolVersion = connectionInfo.protocolVersion;
 
             // send ACK 0
-            ByteArrayOutputStream byteArrayOutput = new ByteArrayOutputStream();
-            DataOutput output = new DataOutputStream(byteArrayOutput);
+            MessageWriter output = MessageWriter.get();
 
             output.writeByte(BridgeProtocolConstants.MESSAGE_ID_ACK);
             output.writeInt(connectionId);
-            output.writeInt(0);
+            DataStreamUtils.writeInt(output, 0, connectionInfo.protocolVersion);
 
-            byte[] message = byteArrayOutput.toByteArray();
+            byte[] message = output.toByteArray();
             sendMessage(player, message);
         } else {
 
@@ -134,7 +154,7 @@ public abstract class AbstractBridge<Player, Server> {
 
             connectionInfo.hasReceived = true;
 
-            int sequenceNumber = input.readInt();
+            int sequenceNumber = DataStreamUtils.readInt(input, connectionInfo.protocolVersion);
 
             BridgeData bridgeData;
             boolean isServerMessage;
@@ -155,57 +175,64 @@ public abstract class AbstractBridge<Player, Server> {
 
             if (messageId == BridgeProtocolConstants.MESSAGE_ID_ACK) {
 
-                int confirmed = sequenceNumber - bridgeData.lastConfirmed;
+                boolean windowOpened;
 
-                if (confirmed > bridgeData.messagesPendingConfirmation.size()) {
-                    return;
+                synchronized (bridgeData) {
+                    int confirmed = sequenceNumber - bridgeData.lastConfirmed;
+
+                    if (confirmed <= 0 || confirmed > bridgeData.messagesPendingConfirmation.size()) {
+                        return;
+                    }
+
+                    windowOpened = bridgeData.isWindowFull();
+
+                    while (confirmed-- > 0) {
+                        bridgeData.lastConfirmed++;
+                        bridgeData.messagesPendingConfirmation.remove();
+                    }
+                    bridgeData.retransmitTimeout = BridgeProtocolConstants.RETRANSMIT_TIMEOUT_MIN;
                 }
 
-                while (confirmed-- > 0) {
-                    bridgeData.lastConfirmed++;
-                    bridgeData.messagesPendingConfirmation.remove();
+                if (windowOpened && !isServerMessage) {
+                    // send the updates held back while the window was full
+                    scheduleUpdate(player, connectionInfo);
                 }
             } else if (messageId == BridgeProtocolConstants.MESSAGE_ID_REQUEST_DATA) {
 
-                if (sequenceNumber > bridgeData.nextIncomingMessageId) {
-                    // ignore messages from the future
-                    return;
+                // messages are processed strictly in order, the ACK confirms everything received so far
+                boolean accepted = sequenceNumber == bridgeData.nextIncomingMessageId;
+
+                if (accepted) {
+                    bridgeData.nextIncomingMessageId++;
                 }
 
-                ByteArrayOutputStream byteArrayOutput = new ByteArrayOutputStream();
-                DataOutput output = new DataOutputStream(byteArrayOutput);
+                MessageWriter output = MessageWriter.get();
 
                 output.writeByte(BridgeProtocolConstants.MESSAGE_ID_ACK | (isServerMessage ? 0x80 : 0x00));
                 output.writeInt(connectionId);
-                output.writeInt(sequenceNumber);
+                DataStreamUtils.writeInt(output, bridgeData.nextIncomingMessageId - 1, connectionInfo.protocolVersion);
 
-                byte[] message = byteArrayOutput.toByteArray();
+                byte[] message = output.toByteArray();
                 sendMessage(player, message);
 
-                if (sequenceNumber < bridgeData.nextIncomingMessageId) {
-                    // ignore messages from the past after sending ACK
+                if (!accepted) {
+                    // ignore messages from the past or the future after sending ACK
                     return;
                 }
 
-                bridgeData.nextIncomingMessageId++;
-
-                int size = input.readInt();
+                int size = DataStreamUtils.readInt(input, connectionInfo.protocolVersion);
                 for (int i = 0; i < size; i++) {
-                    DataKey<?> key = DataStreamUtils.readDataKey(input, dataKeyRegistry);
-                    int keyNetId = input.readInt();
+                    DataKey<?> key = connectionInfo.protocolVersion >= 6
+                            ? DataStreamUtils.readDataKey(input, bridgeData.keyDictionary, dataKeyRegistry, null)
+                            : DataStreamUtils.readDataKey(input, dataKeyRegistry);
+                    int keyNetId = DataStreamUtils.readInt(input, connectionInfo.protocolVersion);
 
                     if (key != null) {
-                        bridgeData.addRequest(key, keyNetId);
+                        bridgeData.addRequest(key, keyNetId, typeAdapterRegistry);
                     }
                 }
 
-                runAsync(() -> {
-                    try {
-                        updatePlayerData(player, connectionInfo);
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                });
+                scheduleUpdate(player, connectionInfo);
             } else {
                 throw new IllegalArgumentException("Unexpected message id: " + messageId);
             }
@@ -224,16 +251,15 @@ public abstract class AbstractBridge<Player, Server> {
                 if (--connectionInfo.nextIntroducePacketDelay <= 0) {
                     connectionInfo.nextIntroducePacketDelay = connectionInfo.introducePacketDelay++;
 
-                    ByteArrayOutputStream byteArrayOutput = new ByteArrayOutputStream();
-                    DataOutput output = new DataOutputStream(byteArrayOutput);
+                    MessageWriter output = MessageWriter.get();
 
                     output.writeByte(BridgeProtocolConstants.MESSAGE_ID_INTRODUCE);
                     output.writeInt(serverIdentifier);
                     output.writeInt(BridgeProtocolConstants.VERSION);
-                    output.writeInt(BridgeProtocolConstants.VERSION);
+                    output.writeInt(BridgeProtocolConstants.MINIMUM_COMPATIBLE_VERSION);
                     output.writeUTF(pluginVersion);
 
-                    byte[] message = byteArrayOutput.toByteArray();
+                    byte[] message = output.toByteArray();
                     sendMessage(entry.getKey(), message);
                 }
             }
@@ -244,6 +270,9 @@ public abstract class AbstractBridge<Player, Server> {
     /**
      * Sends unconfirmed messages to the proxy yet another time, to ensure their arrival.
      * <p>
+     * Messages of a stream are only sent again once its retransmit timeout has passed. The timeout doubles with every
+     * retransmission until the proxy confirms a message.
+     * <p>
      * Should be called periodically, recommended interval is 1s to 10s.
      */
     public void resendUnconfirmedMessages() {
@@ -261,14 +290,8 @@ public abstract class AbstractBridge<Player, Server> {
             proxyIds.putIfAbsent(connectionInfo.proxyIdentifier, player);
             BridgeData bridgeData = connectionInfo.playerBridgeData;
 
-            if (bridgeData == null) {
-                continue;
-            }
-
-            if (bridgeData.messagesPendingConfirmation.size() > 0 && (now > bridgeData.lastMessageSent + 1000 || bridgeData.messagesPendingConfirmation.size() > 5)) {
-                for (byte[] message : bridgeData.messagesPendingConfirmation) {
-                    sendMessage(player, message);
-                }
+            if (bridgeData != null) {
+                resendUnconfirmedMessages(player, bridgeData, now);
             }
         }
 
@@ -277,75 +300,289 @@ public abstract class AbstractBridge<Player, Server> {
             Player player = e.getValue();
             BridgeData bridgeData = serverBridgeDataMap.get(proxyIdentifier);
 
-            if (bridgeData != null && bridgeData.messagesPendingConfirmation.size() > 0 && (now > bridgeData.lastMessageSent + 1000 || bridgeData.messagesPendingConfirmation.size() > 5)) {
-                for (byte[] message : bridgeData.messagesPendingConfirmation) {
-                    sendMessage(player, message);
-                }
+            if (bridgeData != null) {
+                resendUnconfirmedMessages(player, bridgeData, now);
             }
         }
     }
 
-    public void updateData() throws IOException {
-        synchronized (updateDataLock) {
-            Map<Integer, Player> proxyIds = new HashMap<>();
+    private void resendUnconfirmedMessages(@Nonnull Player player, @Nonnull BridgeData bridgeData, long now) {
+        synchronized (bridgeData) {
+            if (bridgeData.messagesPendingConfirmation.isEmpty() || now <= bridgeData.lastMessageSent + bridgeData.retransmitTimeout) {
+                return;
+            }
+
+            for (byte[] message : bridgeData.messagesPendingConfirmation) {
+                sendMessage(player, message);
+            }
+            bridgeData.lastMessageSent = now;
+            bridgeData.retransmitTimeout = Math.min(bridgeData.retransmitTimeout * 2, BridgeProtocolConstants.RETRANSMIT_TIMEOUT_MAX);
+        }
+    }
 
-            for (Map.Entry<Player, PlayerConnectionInfo> e : playerPlayerConnectionInfoMap.entrySet()) {
-                Player player = e.getKey();
-                PlayerConnectionInfo connectionInfo = e.getValue();
+    /**
+     * Sets the minimum time between two queries of the given data key.
+     * <p>
+     * Keys without a refresh interval are queried on every invocation of {@link #updateData()}. Keys with a longer
+     * interval are only queried again once the interval has passed, or earlier if they are marked dirty using
+     * {@link #markDirty(Object, DataKey)} or {@link #markServerDirty(DataKey)}. Keys which are reliably marked dirty
+     * when they change should use a long interval, so they are effectively only queried after a change.
+     *
+     * @param key      the data key, including its parameter
+     * @param interval the minimum time between two queries, zero to query the key on every update
+     * @param unit     the time unit of interval
+     */
+    public void setRefreshInterval(@Nonnull DataKey<?> key, long interval, @Nonnull TimeUnit unit) {
+        if (interval > 0) {
+            refreshIntervals.put(key, unit.toMillis(interval));
+        } else {
+            refreshIntervals.remove(key);
+        }
+        refreshIntervalsVersion.incrementAndGet();
+    }
 
-                if (!connectionInfo.isConnectionValid) {
-                    continue;
+    /**
+     * Sets the policy controlling which changes of the given data key are sent to the proxy.
+     * <p>
+     * Intended for numeric keys which change nearly every tick, e.g. the location or health of a player, while the
+     * tab list only displays a rounded value.
+     *
+     * @param key    the data key, including its parameter
+     * @param policy the policy, {@link SyncPolicy#DEFAULT} to send every change
+     */
+    public void setSyncPolicy(@Nonnull DataKey<?> key, @Nonnull SyncPolicy policy) {
+        if (policy != SyncPolicy.DEFAULT) {
+            syncPolicies.put(key, policy);
+        } else {
+            syncPolicies.remove(key);
+        }
+        syncPoliciesVersion.incrementAndGet();
+    }
+
+    /**
+     * Marks a player data key as changed. The value is queried and sent to the proxy as soon as possible,
+     * regardless of its refresh interval. The update triggered by this method only queries keys marked dirty.
+     *
+     * @param player the player
+     * @param key    the data key, including its parameter
+     */
+    public void markDirty(@Nonnull Player player, @Nonnull DataKey<?> key) {
+        PlayerConnectionInfo connectionInfo = playerPlayerConnectionInfoMap.get(player);
+
+        if (connectionInfo == null || !connectionInfo.isConnectionValid) {
+            return;
+        }
+
+        BridgeData bridgeData = connectionInfo.playerBridgeData;
+
+        if (bridgeData != null && bridgeData.invalidate(key)) {
+            scheduleUpdate(player, connectionInfo);
+        }
+    }
+
+    /**
+     * Marks a server data key as changed. The value is queried and sent to all proxies as soon as possible,
+     * regardless of its refresh interval.
+     *
+     * @param key the data key, including its parameter
+     */
+    public void markServerDirty(@Nonnull DataKey<?> key) {
+        boolean invalidated = false;
+        for (BridgeData bridgeData : serverBridgeDataMap.values()) {
+            invalidated |= bridgeData.invalidate(key);
+        }
+
+        if (invalidated && serverUpdateScheduled.compareAndSet(false, true)) {
+            runAsync(() -> {
+                serverUpdateScheduled.set(false);
+                try {
+                    updateServerData(true);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+
+    private void scheduleUpdate(@Nonnull Player player, @Nonnull PlayerConnectionInfo connectionInfo) {
+        if (connectionInfo.updateScheduled.compareAndSet(false, true)) {
+            runAsync(() -> {
+                connectionInfo.updateScheduled.set(false);
+                try {
+                    updatePlayerData(player, connectionInfo, true);
+                } catch (IOException e) {
+                    e.printStackTrace();
                 }
+            });
+        }
+    }
+
+    /**
+     * @param dirtyOnly whether only keys marked dirty are due, used for updates triggered by {@link #markDirty(Object, DataKey)}
+     */
+    private boolean isRefreshDue(@Nonnull CacheEntry entry, long now, boolean dirtyOnly) {
+        int version = refreshIntervalsVersion.get();
+        if (entry.refreshIntervalVersion != version) {
+            Long interval = refreshIntervals.get(entry.key);
+            entry.refreshInterval = interval != null ? interval : 0;
+            entry.refreshIntervalVersion = version;
+            entry.nextRefresh = 0;
+        }
+        // cleared atomically, so a key marked dirty while it is queried is queried once more
+        if (entry.invalidated.getAndSet(false) || (!dirtyOnly && now >= entry.nextRefresh)) {
+            entry.nextRefresh = now + entry.refreshInterval;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Updates the entry with the value queried from the data access, applying its sync policy.
+     */
+    private void updateEntry(@Nonnull CacheEntry entry, @Nullable Object value, long now) {
+        int version = syncPoliciesVersion.get();
+        if (entry.syncPolicyVersion != version) {
+            entry.syncPolicy = syncPolicies.getOrDefault(entry.key, SyncPolicy.DEFAULT);
+            entry.syncPolicyVersion = version;
+        }
+        SyncPolicy policy = entry.syncPolicy;
+        if (policy == SyncPolicy.DEFAULT) {
+            entry.update(value);
+            return;
+        }
 
-                proxyIds.putIfAbsent(connectionInfo.proxyIdentifier, player);
+        value = policy.round(value);
+        if (Objects.equals(value, entry.value) || !policy.isSignificantChange(value, entry.value)) {
+            entry.dirty = false;
+        } else if (now < entry.lastSent + policy.getMinimumInterval()) {
+            entry.dirty = false;
+            // query the key again on the next update
+            entry.invalidated.set(true);
+        } else {
+            entry.update(value);
+            entry.lastSent = now;
+        }
+    }
 
-                updatePlayerData(player, connectionInfo);
+    /**
+     * Sets the number of tasks a single invocation of {@link #updateData()} is split into. All but one of these
+     * tasks are executed using {@link #runAsync(Runnable)}.
+     *
+     * @param updateParallelism the number of tasks, 1 to update all players on the calling thread
+     */
+    public void setUpdateParallelism(int updateParallelism) {
+        if (updateParallelism < 1) {
+            throw new IllegalArgumentException("updateParallelism must be at least 1");
+        }
+        this.updateParallelism = updateParallelism;
+    }
+
+    public void updateData() throws IOException {
+        if (pendingUpdateTasks.get() != 0) {
+            // the previous update has not completed yet
+            return;
+        }
+
+        List<Map.Entry<Player, PlayerConnectionInfo>> connections = new ArrayList<>(playerPlayerConnectionInfoMap.entrySet());
+        int tasks = Math.max(1, Math.min(updateParallelism, connections.size() / MIN_PLAYERS_PER_UPDATE_TASK));
+        int chunkSize = (connections.size() + tasks - 1) / tasks;
+
+        pendingUpdateTasks.set(tasks - 1);
+        for (int i = 1; i < tasks; i++) {
+            List<Map.Entry<Player, PlayerConnectionInfo>> chunk = connections.subList(i * chunkSize, Math.min(connections.size(), (i + 1) * chunkSize));
+            try {
+                runAsync(() -> {
+                    try {
+                        updatePlayerData(chunk);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    } finally {
+                        pendingUpdateTasks.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException ex) {
+                pendingUpdateTasks.decrementAndGet();
+                throw ex;
+            }
+        }
+        updatePlayerData(connections.subList(0, Math.min(connections.size(), chunkSize)));
+
+        updateServerData(false);
+    }
+
+    private void updatePlayerData(@Nonnull List<Map.Entry<Player, PlayerConnectionInfo>> connections) throws IOException {
+        for (Map.Entry<Player, PlayerConnectionInfo> e : connections) {
+            PlayerConnectionInfo connectionInfo = e.getValue();
+
+            if (!connectionInfo.isConnectionValid) {
+                continue;
+            }
+
+            updatePlayerData(e.getKey(), connectionInfo, false);
+        }
+    }
+
+    private void updateServerData(boolean dirtyOnly) throws IOException {
+        Map<Integer, Player> proxyIds = new HashMap<>();
+
+        for (Map.Entry<Player, PlayerConnectionInfo> e : playerPlayerConnectionInfoMap.entrySet()) {
+            PlayerConnectionInfo connectionInfo = e.getValue();
+
+            if (connectionInfo.isConnectionValid) {
+                proxyIds.putIfAbsent(connectionInfo.proxyIdentifier, e.getKey());
             }
+        }
+
+        for (Map.Entry<Integer, Player> e : proxyIds.entrySet()) {
+            Integer proxyIdentifier = e.getKey();
+            Player player = e.getValue();
+            BridgeData bridgeData = serverBridgeDataMap.get(proxyIdentifier);
 
-            for (Map.Entry<Integer, Player> e : proxyIds.entrySet()) {
-                Integer proxyIdentifier = e.getKey();
-                Player player = e.getValue();
-                BridgeData bridgeData = serverBridgeDataMap.get(proxyIdentifier);
+            if (bridgeData == null) {
+                continue;
+            }
 
-                if (bridgeData == null) {
+            synchronized (bridgeData) {
+                if (bridgeData.isWindowFull()) {
+                    // changes are picked up once the proxy confirms pending messages
                     continue;
                 }
 
+                long now = System.currentTimeMillis();
                 int size = 0;
 
                 for (CacheEntry entry : bridgeData.requestedData) {
+                    if (!isRefreshDue(entry, now, dirtyOnly)) {
+                        entry.dirty = false;
+                        continue;
+                    }
                     Object value = serverDataAccess.get(entry.key, server);
-                    entry.dirty = !Objects.equals(value, entry.value);
-                    entry.value = value;
+                    updateEntry(entry, value, now);
 
                     if (entry.dirty) {
                         size++;
                     }
                 }
 
-                ByteArrayOutputStream byteArrayOutput = new ByteArrayOutputStream();
-                DataOutput output = new DataOutputStream(byteArrayOutput);
+                if (size == 0) {
+                    if (bridgeData.protocolVersion >= 6
+                            && bridgeData.messagesPendingConfirmation.isEmpty()
+                            && now > bridgeData.lastMessageSent + BridgeProtocolConstants.KEEP_ALIVE_INTERVAL) {
+                        sendKeepAlive(player, proxyIdentifier, bridgeData);
+                    }
+                    continue;
+                }
+
+                MessageWriter output = MessageWriter.get();
 
                 output.writeByte(BridgeProtocolConstants.MESSAGE_ID_UPDATE_DATA_SERVER);
                 output.writeInt(proxyIdentifier + serverIdentifier);
-                output.writeInt(bridgeData.nextOutgoingMessageId++);
-                output.writeInt(size);
+                DataStreamUtils.writeInt(output, bridgeData.nextOutgoingMessageId++, bridgeData.protocolVersion);
+                DataStreamUtils.writeInt(output, size, bridgeData.protocolVersion);
 
-                for (CacheEntry entry : bridgeData.requestedData) {
-                    if (entry.dirty) {
-                        output.writeInt(entry.netId);
-                        output.writeBoolean(entry.value == null);
-                        if (entry.value != null) {
-                            try {
-                                typeAdapterRegistry.getTypeAdapter((TypeToken<Object>) entry.key.getType()).write(output, entry.value);
-                            } catch (IOException e1) {
-                                e1.printStackTrace();
-                            }
-                        }
-                    }
-                }
+                writeDirtyEntries(output, bridgeData);
 
-                byte[] message = byteArrayOutput.toByteArray();
+                byte[] message = output.toByteArray();
                 bridgeData.messagesPendingConfirmation.add(message);
                 bridgeData.lastMessageSent = System.currentTimeMillis();
                 sendMessage(player, message);
@@ -353,20 +590,43 @@ public abstract class AbstractBridge<Player, Server> {
         }
     }
 
-    private void updatePlayerData(@Nonnull Player player, @Nonnull PlayerConnectionInfo connectionInfo) throws IOException {
-        synchronized (updateDataLock) {
-            BridgeData bridgeData = connectionInfo.playerBridgeData;
+    /**
+     * Sends a keep alive message on the server data stream. Unlike data updates it does not consume a sequence
+     * number and is not added to the messages pending confirmation.
+     */
+    private void sendKeepAlive(@Nonnull Player player, int proxyIdentifier, @Nonnull BridgeData bridgeData) throws IOException {
+        MessageWriter output = MessageWriter.get();
 
-            if (bridgeData == null) {
+        output.writeByte(BridgeProtocolConstants.MESSAGE_ID_KEEP_ALIVE_SERVER);
+        output.writeInt(proxyIdentifier + serverIdentifier);
+
+        bridgeData.lastMessageSent = System.currentTimeMillis();
+        sendMessage(player, output.toByteArray());
+    }
+
+    private void updatePlayerData(@Nonnull Player player, @Nonnull PlayerConnectionInfo connectionInfo, boolean dirtyOnly) throws IOException {
+        BridgeData bridgeData = connectionInfo.playerBridgeData;
+
+        if (bridgeData == null) {
+            return;
+        }
+
+        synchronized (bridgeData) {
+            if (bridgeData.isWindowFull()) {
+                // changes are picked up once the proxy confirms pending messages
                 return;
             }
 
             int size = 0;
+            long now = System.currentTimeMillis();
 
             for (CacheEntry entry : bridgeData.requestedData) {
+                if (!isRefreshDue(entry, now, dirtyOnly)) {
+                    entry.dirty = false;
+                    continue;
+                }
                 Object value = playerDataAccess.get(entry.key, player);
-                entry.dirty = !Objects.equals(value, entry.value);
-                entry.value = value;
+                updateEntry(entry, value, now);
 
                 if (entry.dirty) {
                     size++;
@@ -374,28 +634,15 @@ public abstract class AbstractBridge<Player, Server> {
             }
 
             if (size != 0) {
-                ByteArrayOutputStream byteArrayOutput = new ByteArrayOutputStream();
-                DataOutput output = new DataOutputStream(byteArrayOutput);
+                MessageWriter output = MessageWriter.get();
                 output.writeByte(BridgeProtocolConstants.MESSAGE_ID_UPDATE_DATA);
                 output.writeInt(connectionInfo.connectionIdentifier);
-                output.writeInt(bridgeData.nextOutgoingMessageId++);
-                output.writeInt(size);
+                DataStreamUtils.writeInt(output, bridgeData.nextOutgoingMessageId++, bridgeData.protocolVersion);
+                DataStreamUtils.writeInt(output, size, bridgeData.protocolVersion);
 
-                for (CacheEntry entry : bridgeData.requestedData) {
-                    if (entry.dirty) {
-                        output.writeInt(entry.netId);
-                        output.writeBoolean(entry.value == null);
-                        if (entry.value != null) {
-                            try {
-                                typeAdapterRegistry.getTypeAdapter((TypeToken<Object>) entry.key.getType()).write(output, entry.value);
-                            } catch (IOException e1) {
-                                e1.printStackTrace();
-                            }
-                        }
-                    }
-                }
+                writeDirtyEntries(output, bridgeData);
 
-                byte[] message = byteArrayOutput.toByteArray();
+                byte[] message = output.toByteArray();
                 bridgeData.messagesPendingConfirmation.add(message);
                 bridgeData.lastMessageSent = System.currentTimeMillis();
                 sendMessage(player, message);
@@ -403,6 +650,27 @@ public abstract class AbstractBridge<Player, Server> {
         }
     }
 
+    private void writeDirtyEntries(@Nonnull DataOutput output, @Nonnull BridgeData bridgeData) throws IOException {
+        boolean deltaEncoding = bridgeData.protocolVersion >= 6;
+        for (CacheEntry entry : bridgeData.requestedData) {
+            if (entry.dirty) {
+                DataStreamUtils.writeInt(output, entry.netId, bridgeData.protocolVersion);
+                output.writeBoolean(entry.value == null);
+                if (entry.value != null) {
+                    try {
+                        if (deltaEncoding && entry.deltaTypeAdapter != null) {
+                            entry.deltaTypeAdapter.writeDelta(output, entry.value, entry.previousValue);
+                        } else {
+                            entry.typeAdapter.write(output, entry.value);
+                        }
+                    } catch (IOException e1) {
+                        e1.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
     public void setPlayerDataAccess(@Nonnull DataAccess<Player> playerDataAccess) {
         this.playerDataAccess = playerDataAccess;
     }
@@ -423,6 +691,7 @@ public abstract class AbstractBridge<Player, Server> {
         int proxyIdentifier = 0;
         int nextIntroducePacketDelay = 1;
         int introducePacketDelay = 1;
+        final AtomicBoolean updateScheduled = new AtomicBoolean(false);
         @Nullable
         BridgeData playerBridgeData = null;
         @Nullable
@@ -433,32 +702,75 @@ public abstract class AbstractBridge<Player, Server> {
         @Nonnull
         final DataKey<?> key;
         final int netId;
+        final TypeAdapter<Object> typeAdapter;
+        @Nullable
+        final DeltaTypeAdapter<Object> deltaTypeAdapter;
         @Nullable
         Object value = null;
+        @Nullable
+        Object previousValue = null;
         boolean dirty = false;
+        // initially set, so new requests are answered by the next update
+        final AtomicBoolean invalidated = new AtomicBoolean(true);
+        long nextRefresh = 0;
+        long refreshInterval = 0;
+        int refreshIntervalVersion = -1;
+        @Nonnull
+        SyncPolicy syncPolicy = SyncPolicy.DEFAULT;
+        int syncPolicyVersion = -1;
+        long lastSent = 0;
 
-        CacheEntry(@Nonnull DataKey<?> key, int netId) {
+        @SuppressWarnings("unchecked")
+        CacheEntry(@Nonnull DataKey<?> key, int netId, @Nonnull TypeAdapterRegistry typeAdapterRegistry) {
             this.key = key;
             this.netId = netId;
+            this.typeAdapter = typeAdapterRegistry.getTypeAdapter((TypeToken<Object>) key.getType());
+            this.deltaTypeAdapter = DeltaCodec.getTypeAdapter((TypeToken<Object>) key.getType());
+        }
+
+        void update(@Nullable Object value) {
+            dirty = !Objects.equals(value, this.value);
+            if (dirty) {
+                previousValue = this.value;
+                this.value = value;
+            }
         }
     }
 
     private static class BridgeData {
         final Queue<byte[]> messagesPendingConfirmation = new ConcurrentLinkedQueue<>();
+        final StringDictionary keyDictionary = new StringDictionary();
+        volatile int protocolVersion = 0;
         final List<CacheEntry> requestedData = new CopyOnWriteArrayList<>();
         int lastConfirmed = 0;
         int nextOutgoingMessageId = 1;
         int nextIncomingMessageId = 1;
         long lastMessageSent = 0;
+        long retransmitTimeout = BridgeProtocolConstants.RETRANSMIT_TIMEOUT_MIN;
 
-        private void addRequest(@Nonnull DataKey<?> key, int netId) {
+        private boolean isWindowFull() {
+            return messagesPendingConfirmation.size() >= BridgeProtocolConstants.MAX_MESSAGES_IN_FLIGHT;
+        }
+
+        private void addRequest(@Nonnull DataKey<?> key, int netId, @Nonnull TypeAdapterRegistry typeAdapterRegistry) {
             for (CacheEntry registration : requestedData) {
                 if (Objects.equals(registration.key, key)) {
                     return;
                 }
             }
 
-            requestedData.add(new CacheEntry(key, netId));
+            requestedData.add(new CacheEntry(key, netId, typeAdapterRegistry));
+        }
+
+        private boolean invalidate(@Nonnull DataKey<?> key) {
+            boolean found = false;
+            for (CacheEntry entry : requestedData) {
+                if (Objects.equals(entry.key, key)) {
+                    entry.invalidated.set(true);
+                    found = true;
+                }
+            }
+            return found;
         }
     }
 }
@@ -0,0 +1,94 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.codecrafter47.bungeetablistplus.bridge;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls which changes of a numeric data key are sent to the proxy.
+ * <p>
+ * Values are first rounded to a multiple of the precision. A change is only sent if the rounded value differs from
+ * the value last sent by at least the minimum delta, and not earlier than the minimum interval after the last update
+ * of the same key. Changes held back by the minimum interval are sent on the next update after it has passed.
+ * Non-numeric values are not affected.
+ */
+public final class SyncPolicy {
+
+    public static final SyncPolicy DEFAULT = new SyncPolicy(0, 0, 0);
+
+    private final double precision;
+    private final double minimumDelta;
+    private final long minimumInterval;
+
+    private SyncPolicy(double precision, double minimumDelta, long minimumInterval) {
+        this.precision = precision;
+        this.minimumDelta = minimumDelta;
+        this.minimumInterval = minimumInterval;
+    }
+
+    /**
+     * @param precision       values are rounded to a multiple of this, zero to send exact values
+     * @param minimumDelta    the minimum difference to the value last sent, zero to send every change
+     * @param minimumInterval the minimum time between two updates, zero for no limit
+     * @param unit            the time unit of minimumInterval
+     */
+    public static SyncPolicy of(double precision, double minimumDelta, long minimumInterval, @Nonnull TimeUnit unit) {
+        if (precision < 0 || minimumDelta < 0 || minimumInterval < 0) {
+            throw new IllegalArgumentException("Negative sync policy parameter");
+        }
+        if (precision == 0 && minimumDelta == 0 && minimumInterval == 0) {
+            return DEFAULT;
+        }
+        return new SyncPolicy(precision, minimumDelta, unit.toMillis(minimumInterval));
+    }
+
+    public long getMinimumInterval() {
+        return minimumInterval;
+    }
+
+    @Nullable
+    Object round(@Nullable Object value) {
+        if (precision == 0 || !(value instanceof Number)) {
+            return value;
+        }
+        if (value instanceof Double) {
+            double d = (Double) value;
+            return Double.isFinite(d) ? roundToPrecision(d) : value;
+        } else if (value instanceof Float) {
+            float f = (Float) value;
+            return Float.isFinite(f) ? (float) roundToPrecision(f) : value;
+        } else if (value instanceof Integer) {
+            long rounded = Math.round(roundToPrecision((Integer) value));
+            return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, rounded));
+        }
+        return value;
+    }
+
+    private double roundToPrecision(double value) {
+        return Math.rint(value / precision) * precision;
+    }
+
+    boolean isSignificantChange(@Nullable Object value, @Nullable Object previous) {
+        if (minimumDelta == 0 || !(value instanceof Number) || !(previous instanceof Number)) {
+            return true;
+        }
+        return Math.abs(((Number) value).doubleValue() - ((Number) previous).doubleValue()) >= minimumDelta;
+    }
+}
@@ -22,6 +22,7 @@ import codecrafter47.bungeetablistplus.api.bukkit.Variable;
 import codecrafter47.bungeetablistplus.bukkitbridge.placeholderapi.PlaceholderAPIHook;
 import codecrafter47.bungeetablistplus.common.BTLPDataKeys;
 import codecrafter47.bungeetablistplus.common.network.BridgeProtocolConstants;
+import codecrafter47.bungeetablistplus.common.network.MessageReader;
 import codecrafter47.bungeetablistplus.common.network.TypeAdapterRegistry;
 import codecrafter47.bungeetablistplus.common.util.RateLimitedExecutor;
 import com.google.common.base.Preconditions;
@@ -29,6 +30,7 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import de.codecrafter47.bungeetablistplus.bridge.AbstractBridge;
+import de.codecrafter47.bungeetablistplus.bridge.SyncPolicy;
 import de.codecrafter47.data.api.DataKey;
 import de.codecrafter47.data.api.DataKeyRegistry;
 import de.codecrafter47.data.api.JoinedDataAccess;
@@ -38,23 +40,32 @@ import de.codecrafter47.data.bukkit.ServerDataAccess;
 import de.codecrafter47.data.bukkit.api.BukkitData;
 import de.codecrafter47.data.minecraft.api.MinecraftData;
 import org.bukkit.Server;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityRegainHealthEvent;
+import org.bukkit.event.player.PlayerExpChangeEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLevelChangeEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.server.PluginDisableEvent;
 import org.bukkit.event.server.PluginEnableEvent;
 import org.bukkit.plugin.Plugin;
 
 import javax.annotation.Nonnull;
-import java.io.ByteArrayInputStream;
 import java.io.DataInput;
-import java.io.DataInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
@@ -70,6 +81,10 @@ public class BukkitBridge extends BungeeTabListPlusBukkitAPI implements Listener
 
     private static final RateLimitedExecutor rlExecutor = new RateLimitedExecutor(5000);
 
+    // keys marked dirty by the event handlers below, only polled to pick up changes made without an event
+    private static final DataKey<?>[] EVENT_DRIVEN_KEYS = {MinecraftData.Health, MinecraftData.XP, MinecraftData.TotalXP, MinecraftData.Level};
+    private static final long EVENT_DRIVEN_REFRESH_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
     private final Plugin plugin;
 
     private PlaceholderAPIHook placeholderAPIHook = null;
@@ -79,11 +94,16 @@ public class BukkitBridge extends BungeeTabListPlusBukkitAPI implements Listener
     private final Multimap<Plugin, Variable> variablesByPlugin = HashMultimap.create();
     private final Map<String, ServerVariable> serverVariablesByName = new HashMap<>();
     private final Multimap<Plugin, ServerVariable> serverVariablesByPlugin = HashMultimap.create();
+    private final Map<DataKey<?>, Long> refreshIntervals = new ConcurrentHashMap<>();
+    private final Map<DataKey<?>, SyncPolicy> syncPolicies = new HashMap<>();
 
-    private Bridge bridge;
+    private volatile Bridge bridge;
 
     public BukkitBridge(Plugin plugin) {
         this.plugin = plugin;
+        for (DataKey<?> key : EVENT_DRIVEN_KEYS) {
+            refreshIntervals.put(key, EVENT_DRIVEN_REFRESH_INTERVAL);
+        }
     }
 
     public void onEnable() {
@@ -95,6 +115,7 @@ public class BukkitBridge extends BungeeTabListPlusBukkitAPI implements Listener
             plugin.getLogger().log(Level.SEVERE, "Failed to initialize API", ex);
         }
 
+        loadSyncPolicies();
         initBridge();
 
         plugin.getServer().getMessenger().registerOutgoingPluginChannel(plugin,
@@ -102,7 +123,7 @@ public class BukkitBridge extends BungeeTabListPlusBukkitAPI implements Listener
         plugin.getServer().getMessenger().registerIncomingPluginChannel(plugin,
                 BridgeProtocolConstants.CHANNEL, (string, player, bytes) -> {
 
-                    DataInput input = new DataInputStream(new ByteArrayInputStream(bytes));
+                    DataInput input = MessageReader.of(ByteBuffer.wrap(bytes));
 
                     try {
                         bridge.onMessage(player, input);
@@ -155,10 +176,73 @@ public class BukkitBridge extends BungeeTabListPlusBukkitAPI implements Listener
     }
 
     private void initBridge() {
-        bridge = new Bridge();
+        Bridge bridge = new Bridge();
+        bridge.setUpdateParallelism(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)));
+        for (Map.Entry<DataKey<?>, Long> entry : refreshIntervals.entrySet()) {
+            bridge.setRefreshInterval(entry.getKey(), entry.getValue(), TimeUnit.MILLISECONDS);
+        }
+        for (Map.Entry<DataKey<?>, SyncPolicy> entry : syncPolicies.entrySet()) {
+            bridge.setSyncPolicy(entry.getKey(), entry.getValue());
+        }
+        this.bridge = bridge;
         updateDataHooks();
     }
 
+    private void loadSyncPolicies() {
+        // the config is optional, most servers don't need one
+        File file = new File(plugin.getDataFolder(), "config.yml");
+        if (!file.exists()) {
+            return;
+        }
+        ConfigurationSection section = YamlConfiguration.loadConfiguration(file).getConfigurationSection("sync-policies");
+        if (section == null) {
+            return;
+        }
+        loadSyncPolicy(section, "location", MinecraftData.PosX, MinecraftData.PosY, MinecraftData.PosZ);
+        loadSyncPolicy(section, "health", MinecraftData.Health);
+        loadSyncPolicy(section, "xp", MinecraftData.XP);
+    }
+
+    private void loadSyncPolicy(ConfigurationSection config, String name, DataKey<?>... keys) {
+        ConfigurationSection section = config.getConfigurationSection(name);
+        if (section == null) {
+            return;
+        }
+        double updatesPerSecond = section.getDouble("max-updates-per-second", 0);
+        SyncPolicy policy = SyncPolicy.of(
+                section.getDouble("precision", 0),
+                section.getDouble("minimum-delta", 0),
+                updatesPerSecond > 0 ? (long) (1000 / updatesPerSecond) : 0,
+                TimeUnit.MILLISECONDS);
+        for (DataKey<?> key : keys) {
+            syncPolicies.put(key, policy);
+        }
+    }
+
+    private void setRefreshInterval(DataKey<?> key, long interval, TimeUnit unit) {
+        if (interval > 0) {
+            refreshIntervals.put(key, unit.toMillis(interval));
+        } else {
+            refreshIntervals.remove(key);
+        }
+        Bridge bridge = this.bridge;
+        if (bridge != null) {
+            bridge.setRefreshInterval(key, interval, unit);
+        }
+    }
+
+    /**
+     * Marks data keys of a player as changed on the next tick. Bukkit events are fired before the change is
+     * applied, so the new value is only available after the event has been processed.
+     */
+    private void markDirtyNextTick(Player player, DataKey<?>... keys) {
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            for (DataKey<?> key : keys) {
+                bridge.markDirty(player, key);
+            }
+        });
+    }
+
     private void updateDataHooks() {
         if (plugin.getServer().getPluginManager().getPlugin("PlaceholderAPI") != null) {
             placeholderAPIHook = new PlaceholderAPIHook(plugin);
@@ -184,6 +268,30 @@ public class BukkitBridge extends BungeeTabListPlusBukkitAPI implements Listener
         bridge.onPlayerDisconnect(event.getPlayer());
     }
 
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerDamage(EntityDamageEvent event) {
+        if (event.getEntity() instanceof Player) {
+            markDirtyNextTick((Player) event.getEntity(), MinecraftData.Health);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerRegainHealth(EntityRegainHealthEvent event) {
+        if (event.getEntity() instanceof Player) {
+            markDirtyNextTick((Player) event.getEntity(), MinecraftData.Health);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerExpChange(PlayerExpChangeEvent event) {
+        markDirtyNextTick(event.getPlayer(), MinecraftData.XP, MinecraftData.TotalXP, MinecraftData.Level);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerLevelChange(PlayerLevelChangeEvent event) {
+        markDirtyNextTick(event.getPlayer(), MinecraftData.XP, MinecraftData.Level);
+    }
+
     @EventHandler
     public void onPluginDisable(PluginDisableEvent event) {
         updateDataHooks();
@@ -262,6 +370,46 @@ public class BukkitBridge extends BungeeTabListPlusBukkitAPI implements Listener
         }
     }
 
+    @Override
+    protected void requestUpdate0(Player player, Variable variable) {
+        Preconditions.checkNotNull(player, "player");
+        Preconditions.checkNotNull(variable, "variable");
+        Bridge bridge = this.bridge;
+        if (bridge != null) {
+            bridge.markDirty(player, BTLPDataKeys.createThirdPartyVariableDataKey(variable.getName()));
+        }
+    }
+
+    @Override
+    protected void requestUpdate0(ServerVariable variable) {
+        Preconditions.checkNotNull(variable, "variable");
+        Bridge bridge = this.bridge;
+        if (bridge != null) {
+            bridge.markServerDirty(BTLPDataKeys.createThirdPartyServerVariableDataKey(variable.getName()));
+        }
+    }
+
+    @Override
+    protected void setUpdateInterval0(Variable variable, long interval, TimeUnit unit) {
+        Preconditions.checkNotNull(variable, "variable");
+        Preconditions.checkNotNull(unit, "unit");
+        setRefreshInterval(BTLPDataKeys.createThirdPartyVariableDataKey(variable.getName()), interval, unit);
+    }
+
+    @Override
+    protected void setUpdateInterval0(ServerVariable variable, long interval, TimeUnit unit) {
+        Preconditions.checkNotNull(variable, "variable");
+        Preconditions.checkNotNull(unit, "unit");
+        setRefreshInterval(BTLPDataKeys.createThirdPartyServerVariableDataKey(variable.getName()), interval, unit);
+    }
+
+    @Override
+    protected void setPlaceholderAPIUpdateInterval0(String placeholder, long interval, TimeUnit unit) {
+        Preconditions.checkNotNull(placeholder, "placeholder");
+        Preconditions.checkNotNull(unit, "unit");
+        setRefreshInterval(BTLPDataKeys.createPlaceholderAPIDataKey(placeholder), interval, unit);
+    }
+
     private class ThirdPartyVariablesAccess extends AbstractBukkitDataAccess<Player> {
         ThirdPartyVariablesAccess() {
             super(BukkitBridge.this.plugin.getLogger(), BukkitBridge.this.plugin);
@@ -82,6 +82,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.ZipEntry;
@@ -147,7 +148,7 @@ public class BungeeTabListPlus {
 
     private Cache cache;
     @Getter
-    MatchingStringsCollection excludedServers;
+    volatile MatchingStringsCollection excludedServers;
 
     @Getter
     private FakePlayerManagerImpl fakePlayerManagerImpl;
@@ -174,7 +175,8 @@ public class BungeeTabListPlus {
     @Getter
     private List<EventListener> listeners = new ArrayList<>();
 
-    private transient boolean scheduledSoftReload;
+    private final AtomicBoolean scheduledSoftReload = new AtomicBoolean(false);
+    private final AtomicBoolean scheduledCacheSave = new AtomicBoolean(false);
 
     public void onLoad() {
         if (!plugin.getDataFolder().exists()) {
@@ -195,15 +197,8 @@ public class BungeeTabListPlus {
 
         INSTANCE = this;
 
-        Executor executor = (task) -> ProxyServer.getInstance().getScheduler().runAsync(getPlugin(), task);
-
-        asyncExecutor = new MultithreadEventExecutorGroup(4, executor) {
-            @Override
-            protected EventExecutor newChild(Executor executor, Object... args) {
-                return new ExceptionHandlingEventExecutor(this, executor, getLogger());
-            }
-        };
-        mainThreadExecutor = new ExceptionHandlingEventExecutor(null, executor, getLogger());
+        asyncExecutor = createExecutorGroup(4);
+        mainThreadExecutor = new ExceptionHandlingEventExecutor(null, this::runAsync, getLogger());
 
         if (plugin.getProxy().getPluginManager().getPlugin("ProtocolSupportBungee") != null) {
             protocolVersionProvider = new ProtocolSupportVersionProvider();
@@ -220,7 +215,8 @@ public class BungeeTabListPlus {
 
         iconManager = new DefaultIconManager(asyncExecutor, mainThreadExecutor, headsFolder.toPath(), getLogger());
 
-        cache = Cache.load(new File(plugin.getDataFolder(), "cache.dat"));
+        cache = Cache.load(new File(plugin.getDataFolder(), "cache.dat"), getLogger());
+        cache.setRegisteredServers(getProxy().getServers().keySet());
 
         serverPlaceholderResolver = new ServerPlaceholderResolver(cache);
         playerPlaceholderResolver = new PlayerPlaceholderResolver(serverPlaceholderResolver, cache);
@@ -283,7 +279,8 @@ public class BungeeTabListPlus {
         plugin.getProxy().registerChannel(BridgeProtocolConstants.CHANNEL);
         bukkitBridge = new BukkitBridge(asyncExecutor, mainThreadExecutor, playerPlaceholderResolver, serverPlaceholderResolver, getPlugin(), getLogger(), bungeePlayerProvider, this, cache);
         serverStateManager = new ServerStateManager(config, plugin);
-        dataManager = new DataManager(api, this.getPlugin(), this.getLogger(), bungeePlayerProvider, mainThreadExecutor, serverStateManager, bukkitBridge);
+        dataManager = new DataManager(api, this.getPlugin(), this.getLogger(), bungeePlayerProvider, mainThreadExecutor,
+                createExecutorGroup(Math.max(1, config.dataUpdateThreads)), this::runAsync, serverStateManager, bukkitBridge);
         dataManager.addCompositeDataProvider(hiddenPlayersManager);
         dataManager.addCompositeDataProvider(new PermissionDataProvider());
 
@@ -312,6 +309,7 @@ public class BungeeTabListPlus {
             int hash = getProxy().getServers().hashCode();
             if (hash != serversHash[0]) {
                 serversHash[0] = hash;
+                cache.setRegisteredServers(getProxy().getServers().keySet());
                 scheduleSoftReload();
             }
         }, 1, 1, TimeUnit.MINUTES);
@@ -355,6 +353,19 @@ public class BungeeTabListPlus {
         ProxyServer.getInstance().getPluginManager().registerListener(plugin, new TabListListener(this));
     }
 
+    private void runAsync(Runnable task) {
+        ProxyServer.getInstance().getScheduler().runAsync(getPlugin(), task);
+    }
+
+    private EventExecutorGroup createExecutorGroup(int nThreads) {
+        return new MultithreadEventExecutorGroup(nThreads, (Executor) this::runAsync) {
+            @Override
+            protected EventExecutor newChild(Executor executor, Object... args) {
+                return new ExceptionHandlingEventExecutor(this, executor, getLogger());
+            }
+        };
+    }
+
     private void updateTimeZoneAndGlobalCustomPlaceholders() {
         configTabOverlayManager.setTimeZone(config.getTimeZone());
 
@@ -382,6 +393,8 @@ public class BungeeTabListPlus {
                         : Collections.emptyList()
         ));
         dataManager.setPermanentlyHiddenPlayers(config.hiddenPlayers != null ? config.hiddenPlayers : Collections.emptyList());
+        dataManager.setUpdateTimeBudget(config.dataUpdateTimeBudget);
+        dataManager.setIsolatedUpdateTimeout(config.placeholderTimeout);
     }
 
     private void extractDefaultIcons(File headsFolder) {
@@ -479,21 +492,34 @@ public class BungeeTabListPlus {
         }
     }
 
+    /**
+     * Schedules a refresh of all tab list configs, e.g. because new placeholders are available. Calls within
+     * {@link MainConfig#softReloadDelay} are combined into a single refresh.
+     */
     public void scheduleSoftReload() {
-        if (!scheduledSoftReload) {
-            scheduledSoftReload = true;
-            asyncExecutor.execute(this::softReload);
+        if (scheduledSoftReload.compareAndSet(false, true)) {
+            asyncExecutor.schedule(this::softReload, config != null ? config.softReloadDelay : 0, TimeUnit.MILLISECONDS);
         }
     }
 
     private void softReload() {
-        scheduledSoftReload = false;
+        scheduledSoftReload.set(false);
 
         if (configTabOverlayManager != null) {
             configTabOverlayManager.refreshConfigs();
+        }
+    }
 
-            // this is a good time to save the cache
-            asyncExecutor.execute(cache::save);
+    /**
+     * Schedules writing the cache file after it has changed. Changes within a few seconds are combined into a
+     * single write.
+     */
+    public void scheduleCacheSave() {
+        if (scheduledCacheSave.compareAndSet(false, true)) {
+            asyncExecutor.schedule(() -> {
+                scheduledCacheSave.set(false);
+                cache.save();
+            }, 5, TimeUnit.SECONDS);
         }
     }
 
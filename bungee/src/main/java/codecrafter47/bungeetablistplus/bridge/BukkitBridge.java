@@ -21,6 +21,12 @@ import codecrafter47.bungeetablistplus.cache.Cache;
 import codecrafter47.bungeetablistplus.common.BTLPDataKeys;
 import codecrafter47.bungeetablistplus.common.network.BridgeProtocolConstants;
 import codecrafter47.bungeetablistplus.common.network.DataStreamUtils;
+import codecrafter47.bungeetablistplus.common.network.DeltaCodec;
+import codecrafter47.bungeetablistplus.common.network.DeltaTypeAdapter;
+import codecrafter47.bungeetablistplus.common.network.MessageReader;
+import codecrafter47.bungeetablistplus.common.network.MessageWriter;
+import codecrafter47.bungeetablistplus.common.network.StringDictionary;
+import codecrafter47.bungeetablistplus.common.network.TypeAdapter;
 import codecrafter47.bungeetablistplus.common.network.TypeAdapterRegistry;
 import codecrafter47.bungeetablistplus.common.util.RateLimitedExecutor;
 import codecrafter47.bungeetablistplus.data.TrackingDataCache;
@@ -28,11 +34,11 @@ import codecrafter47.bungeetablistplus.managers.BungeePlayerProvider;
 import codecrafter47.bungeetablistplus.placeholder.PlayerPlaceholderResolver;
 import codecrafter47.bungeetablistplus.placeholder.ServerPlaceholderResolver;
 import codecrafter47.bungeetablistplus.player.BungeePlayer;
-import com.google.common.io.ByteArrayDataOutput;
-import com.google.common.io.ByteStreams;
-import de.codecrafter47.data.api.DataCache;
 import de.codecrafter47.data.api.DataHolder;
 import de.codecrafter47.data.api.DataKey;
+import de.codecrafter47.data.api.TypeToken;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ReferenceSet;
@@ -51,6 +57,7 @@ import net.md_5.bungee.event.EventHandler;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.logging.Level;
@@ -65,6 +72,8 @@ public class BukkitBridge implements Listener {
     private final Map<String, ServerBridgeDataCache> serverInformation = new ConcurrentHashMap<>();
     private final int proxyIdentifier = ThreadLocalRandom.current().nextInt();
     private final NetDataKeyIdMap idMap = new NetDataKeyIdMap();
+    // type adapters indexed by net id, copied on write
+    private volatile ValueCodec[] valueCodecs = new ValueCodec[0];
 
     private final ScheduledExecutorService asyncExecutor;
     private final ScheduledExecutorService mainLoop;
@@ -126,7 +135,7 @@ public class BukkitBridge implements Listener {
 
                 event.setCancelled(true);
 
-                DataInput input = new DataInputStream(new ByteArrayInputStream(event.getData()));
+                DataInput input = MessageReader.of(ByteBuffer.wrap(event.getData()));
 
                 try {
                     handlePluginMessage(player, server, input);
@@ -176,6 +185,13 @@ public class BukkitBridge implements Listener {
                 stale++;
                 continue;
             }
+
+            ServerBridgeDataCache serverBridgeData = connectionInfo.serverBridgeData;
+            if (serverBridgeData != null && serverBridgeData.protocolVersion >= 6
+                    && System.currentTimeMillis() - serverBridgeData.lastMessageReceived > 3 * BridgeProtocolConstants.KEEP_ALIVE_INTERVAL) {
+                stale++;
+                continue;
+            }
         }
 
         if (unavailable == players.size()) {
@@ -241,23 +257,24 @@ public class BukkitBridge implements Listener {
             } else {
                 connectionInfo.playerBridgeData = bungeePlayer.getBridgeDataCache();
                 connectionInfo.playerBridgeData.setConnectionId(connectionId);
+                connectionInfo.playerBridgeData.protocolVersion = connectionInfo.protocolVersion;
                 connectionInfo.playerBridgeData.connection = server;
                 connectionInfo.playerBridgeData.requestMissingData();
             }
             connectionInfo.serverBridgeData = getServerDataCache(server.getInfo().getName());
             connectionInfo.serverBridgeData.setConnectionId(connectionId);
+            connectionInfo.serverBridgeData.protocolVersion = connectionInfo.protocolVersion;
             connectionInfo.serverBridgeData.addConnection(server);
             connectionInfo.serverBridgeData.requestMissingData();
 
             // send ACK 0
-            ByteArrayOutputStream byteArrayOutput = new ByteArrayOutputStream();
-            DataOutput output = new DataOutputStream(byteArrayOutput);
+            MessageWriter output = MessageWriter.get();
 
             output.writeByte(BridgeProtocolConstants.MESSAGE_ID_ACK);
             output.writeInt(connectionId);
-            output.writeInt(0);
+            DataStreamUtils.writeInt(output, 0, connectionInfo.protocolVersion);
 
-            byte[] message = byteArrayOutput.toByteArray();
+            byte[] message = output.toByteArray();
             server.sendData(BridgeProtocolConstants.CHANNEL, message);
         } else {
 
@@ -273,7 +290,16 @@ public class BukkitBridge implements Listener {
 
             connectionInfo.hasReceived = true;
 
-            int sequenceNumber = input.readInt();
+            if (messageId == BridgeProtocolConstants.MESSAGE_ID_KEEP_ALIVE_SERVER) {
+                // keep alive messages carry no data and are not confirmed
+                ServerBridgeDataCache bridgeData = connectionInfo.serverBridgeData;
+                if (bridgeData != null) {
+                    bridgeData.lastMessageReceived = System.currentTimeMillis();
+                }
+                return;
+            }
+
+            int sequenceNumber = DataStreamUtils.readInt(input, connectionInfo.protocolVersion);
 
             BridgeData bridgeData;
             boolean isServerMessage;
@@ -298,7 +324,7 @@ public class BukkitBridge implements Listener {
 
                     int confirmed = sequenceNumber - bridgeData.lastConfirmed;
 
-                    if (confirmed > bridgeData.messagesPendingConfirmation.size()) {
+                    if (confirmed <= 0 || confirmed > bridgeData.messagesPendingConfirmation.size()) {
                         return;
                     }
 
@@ -306,31 +332,36 @@ public class BukkitBridge implements Listener {
                         bridgeData.lastConfirmed++;
                         bridgeData.messagesPendingConfirmation.remove();
                     }
+                    bridgeData.retransmitTimeout = BridgeProtocolConstants.RETRANSMIT_TIMEOUT_MIN;
+
+                    // send the requests held back while the window was full
+                    bridgeData.sendPendingRequests();
                 } else if (messageId == BridgeProtocolConstants.MESSAGE_ID_UPDATE_DATA) {
 
-                    if (sequenceNumber > bridgeData.nextIncomingMessageId) {
-                        // ignore messages from the future
-                        return;
+                    bridgeData.lastMessageReceived = System.currentTimeMillis();
+
+                    // messages are processed strictly in order, the ACK confirms everything received so far
+                    boolean accepted = sequenceNumber == bridgeData.nextIncomingMessageId;
+
+                    if (accepted) {
+                        bridgeData.nextIncomingMessageId++;
                     }
 
-                    ByteArrayOutputStream byteArrayOutput = new ByteArrayOutputStream();
-                    DataOutput output = new DataOutputStream(byteArrayOutput);
+                    MessageWriter output = MessageWriter.get();
 
                     output.writeByte(BridgeProtocolConstants.MESSAGE_ID_ACK | (isServerMessage ? 0x80 : 0x00));
                     output.writeInt(connectionId);
-                    output.writeInt(sequenceNumber);
+                    DataStreamUtils.writeInt(output, bridgeData.nextIncomingMessageId - 1, connectionInfo.protocolVersion);
 
-                    byte[] message = byteArrayOutput.toByteArray();
+                    byte[] message = output.toByteArray();
                     server.sendData(BridgeProtocolConstants.CHANNEL, message);
 
-                    if (sequenceNumber < bridgeData.nextIncomingMessageId) {
-                        // ignore messages from the past after sending ACK
+                    if (!accepted) {
+                        // ignore messages from the past or the future after sending ACK
                         return;
                     }
 
-                    bridgeData.nextIncomingMessageId++;
-
-                    int size = input.readInt();
+                    int size = DataStreamUtils.readInt(input, connectionInfo.protocolVersion);
                     if (size > 0) {
                         onDataReceived(bridgeData, input, size);
                     }
@@ -342,9 +373,9 @@ public class BukkitBridge implements Listener {
     }
 
     @SuppressWarnings("unchecked")
-    private void onDataReceived(DataCache cache, DataInput input, int size) throws IOException {
+    private void onDataReceived(BridgeData cache, DataInput input, int size) throws IOException {
         if (size == 1) {
-            int netId = input.readInt();
+            int netId = DataStreamUtils.readInt(input, cache.protocolVersion);
             DataKey<?> key = idMap.getKey(netId);
 
             if (key == null) {
@@ -355,17 +386,18 @@ public class BukkitBridge implements Listener {
 
             if (removed) {
 
+                cache.lastReceivedValues.remove(netId);
                 mainLoop.execute(() -> cache.updateValue(key, null));
             } else {
 
-                Object value = typeAdapterRegistry.getTypeAdapter(key.getType()).read(input);
+                Object value = readValue(cache, input, netId, key);
                 mainLoop.execute(() -> cache.updateValue((DataKey<Object>) key, value));
             }
         } else {
             Object[] update = new Object[size * 2];
 
             for (int i = 0; i < update.length; i += 2) {
-                int netId = input.readInt();
+                int netId = DataStreamUtils.readInt(input, cache.protocolVersion);
                 DataKey<?> key = idMap.getKey(netId);
 
                 if (key == null) {
@@ -376,7 +408,9 @@ public class BukkitBridge implements Listener {
                 Object value = null;
 
                 if (!removed) {
-                    value = typeAdapterRegistry.getTypeAdapter(key.getType()).read(input);
+                    value = readValue(cache, input, netId, key);
+                } else {
+                    cache.lastReceivedValues.remove(netId);
                 }
 
                 update[i] = key;
@@ -391,6 +425,39 @@ public class BukkitBridge implements Listener {
         }
     }
 
+    private Object readValue(BridgeData cache, DataInput input, int netId, DataKey<?> key) throws IOException {
+        ValueCodec codec = getValueCodec(netId, key);
+        Object value;
+        if (cache.protocolVersion >= 6 && codec.deltaTypeAdapter != null) {
+            value = codec.deltaTypeAdapter.readDelta(input, cache.lastReceivedValues.get(netId));
+        } else {
+            value = codec.typeAdapter.read(input);
+        }
+        cache.lastReceivedValues.put(netId, value);
+        return value;
+    }
+
+    private ValueCodec getValueCodec(int netId, DataKey<?> key) {
+        ValueCodec[] codecs = valueCodecs;
+        if (netId < codecs.length && codecs[netId] != null) {
+            return codecs[netId];
+        }
+        synchronized (this) {
+            codecs = valueCodecs;
+            if (netId >= codecs.length) {
+                codecs = Arrays.copyOf(codecs, Math.max(netId + 1, codecs.length * 2));
+            } else if (codecs[netId] == null) {
+                codecs = codecs.clone();
+            } else {
+                return codecs[netId];
+            }
+            ValueCodec codec = new ValueCodec(key);
+            codecs[netId] = codec;
+            valueCodecs = codecs;
+            return codec;
+        }
+    }
+
     /**
      * Sends introduce packets to the proxy to try to establish a connection.
      * <p>
@@ -406,16 +473,15 @@ public class BukkitBridge implements Listener {
 
                     try {
 
-                        ByteArrayOutputStream byteArrayOutput = new ByteArrayOutputStream();
-                        DataOutput output = new DataOutputStream(byteArrayOutput);
+                        MessageWriter output = MessageWriter.get();
 
                         output.writeByte(BridgeProtocolConstants.MESSAGE_ID_INTRODUCE);
                         output.writeInt(proxyIdentifier);
                         output.writeInt(BridgeProtocolConstants.VERSION);
-                        output.writeInt(BridgeProtocolConstants.VERSION);
+                        output.writeInt(BridgeProtocolConstants.MINIMUM_COMPATIBLE_VERSION);
                         output.writeUTF(plugin.getDescription().getVersion());
 
-                        byte[] message = byteArrayOutput.toByteArray();
+                        byte[] message = output.toByteArray();
                         server.sendData(BridgeProtocolConstants.CHANNEL, message);
                     } catch (Throwable th) {
                         rlExecutor.execute(() -> {
@@ -428,7 +494,10 @@ public class BukkitBridge implements Listener {
     }
 
     /**
-     * Sends unconfirmed messages to the proxy yet another time, to ensure their arrival.
+     * Sends unconfirmed messages to the server yet another time, to ensure their arrival.
+     * <p>
+     * Messages of a stream are only sent again once its retransmit timeout has passed. The timeout doubles with every
+     * retransmission until the server confirms a message.
      * <p>
      * Should be called periodically, recommended interval is 1s to 10s.
      */
@@ -446,25 +515,31 @@ public class BukkitBridge implements Listener {
 
             BridgeData bridgeData = connectionInfo.playerBridgeData;
 
-            if (bridgeData == null) {
-                continue;
-            }
-
-            if (server != null && bridgeData.messagesPendingConfirmation.size() > 0 && (now > bridgeData.lastMessageSent + 1000 || bridgeData.messagesPendingConfirmation.size() > 5)) {
-                for (byte[] message : bridgeData.messagesPendingConfirmation) {
-                    server.sendData(BridgeProtocolConstants.CHANNEL, message);
-                }
+            if (server != null && bridgeData != null) {
+                resendUnconfirmedMessages(server, bridgeData, now);
             }
         }
 
         for (ServerBridgeDataCache bridgeData : serverInformation.values()) {
             Server server = bridgeData.getConnection();
 
-            if (server != null && bridgeData.messagesPendingConfirmation.size() > 0 && (now > bridgeData.lastMessageSent + 1000 || bridgeData.messagesPendingConfirmation.size() > 5)) {
-                for (byte[] message : bridgeData.messagesPendingConfirmation) {
-                    server.sendData(BridgeProtocolConstants.CHANNEL, message);
-                }
+            if (server != null) {
+                resendUnconfirmedMessages(server, bridgeData, now);
+            }
+        }
+    }
+
+    private void resendUnconfirmedMessages(Server server, BridgeData bridgeData, long now) {
+        synchronized (bridgeData) {
+            if (bridgeData.messagesPendingConfirmation.isEmpty() || now <= bridgeData.lastMessageSent + bridgeData.retransmitTimeout) {
+                return;
             }
+
+            for (byte[] message : bridgeData.messagesPendingConfirmation) {
+                server.sendData(BridgeProtocolConstants.CHANNEL, message);
+            }
+            bridgeData.lastMessageSent = now;
+            bridgeData.retransmitTimeout = Math.min(bridgeData.retransmitTimeout * 2, BridgeProtocolConstants.RETRANSMIT_TIMEOUT_MAX);
         }
     }
 
@@ -482,31 +557,45 @@ public class BukkitBridge implements Listener {
     private void updateBridgePlaceholders(String serverName, ServerBridgeDataCache dataCache) {
         List<String> variables = dataCache.get(BTLPDataKeys.REGISTERED_THIRD_PARTY_VARIABLES);
         if (variables != null) {
+            boolean changed = false;
             for (String variable : variables) {
-                playerPlaceholderResolver.addBridgeCustomPlaceholderDataKey(variable, BTLPDataKeys.createThirdPartyVariableDataKey(variable));
+                changed |= playerPlaceholderResolver.addBridgeCustomPlaceholderDataKey(variable, BTLPDataKeys.createThirdPartyVariableDataKey(variable));
+            }
+            if (cache.updateCustomPlaceholdersBridge(serverName, variables)) {
+                btlp.scheduleCacheSave();
+            }
+            if (changed) {
+                btlp.scheduleSoftReload();
             }
-            cache.updateCustomPlaceholdersBridge(serverName, variables);
-            btlp.scheduleSoftReload();
         }
     }
 
     private void updateBridgeServerPlaceholders(String serverName, ServerBridgeDataCache dataCache) {
         List<String> variables = dataCache.get(BTLPDataKeys.REGISTERED_THIRD_PARTY_SERVER_VARIABLES);
         if (variables != null) {
+            boolean changed = false;
             for (String variable : variables) {
-                serverPlaceholderResolver.addBridgeCustomPlaceholderServerDataKey(variable, BTLPDataKeys.createThirdPartyServerVariableDataKey(variable));
+                changed |= serverPlaceholderResolver.addBridgeCustomPlaceholderServerDataKey(variable, BTLPDataKeys.createThirdPartyServerVariableDataKey(variable));
+            }
+            if (cache.updateCustomServerPlaceholdersBridge(serverName, variables)) {
+                btlp.scheduleCacheSave();
+            }
+            if (changed) {
+                btlp.scheduleSoftReload();
             }
-            cache.updateCustomServerPlaceholdersBridge(serverName, variables);
-            btlp.scheduleSoftReload();
         }
     }
 
     private void updatePlaceholderAPIPlaceholders(String serverName, ServerBridgeDataCache dataCache) {
         List<String> plugins = dataCache.get(BTLPDataKeys.PAPI_REGISTERED_PLACEHOLDER_PLUGINS);
         if (plugins != null) {
-            playerPlaceholderResolver.addPlaceholderAPIPluginPrefixes(plugins);
-            cache.updatePAPIPrefixes(serverName, plugins);
-            btlp.scheduleSoftReload();
+            boolean changed = playerPlaceholderResolver.addPlaceholderAPIPluginPrefixes(plugins);
+            if (cache.updatePAPIPrefixes(serverName, plugins)) {
+                btlp.scheduleCacheSave();
+            }
+            if (changed) {
+                btlp.scheduleSoftReload();
+            }
         }
     }
 
@@ -548,13 +637,31 @@ public class BukkitBridge implements Listener {
         ServerBridgeDataCache serverBridgeData = null;
     }
 
+    private static final class ValueCodec {
+        final TypeAdapter<Object> typeAdapter;
+        @Nullable
+        final DeltaTypeAdapter<Object> deltaTypeAdapter;
+
+        @SuppressWarnings("unchecked")
+        ValueCodec(DataKey<?> key) {
+            this.typeAdapter = typeAdapterRegistry.getTypeAdapter((TypeToken<Object>) key.getType());
+            this.deltaTypeAdapter = DeltaCodec.getTypeAdapter((TypeToken<Object>) key.getType());
+        }
+    }
+
     private abstract class BridgeData extends TrackingDataCache {
 
         final Queue<byte[]> messagesPendingConfirmation = new ConcurrentLinkedQueue<>();
+        final StringDictionary keyDictionary = new StringDictionary();
+        final Int2ObjectMap<Object> lastReceivedValues = new Int2ObjectOpenHashMap<>();
+        int protocolVersion = 0;
         int lastConfirmed = 0;
         int nextOutgoingMessageId = 1;
         int nextIncomingMessageId = 1;
+        final Set<DataKey<?>> pendingRequests = new LinkedHashSet<>();
         long lastMessageSent = 0;
+        long retransmitTimeout = BridgeProtocolConstants.RETRANSMIT_TIMEOUT_MIN;
+        volatile long lastMessageReceived = 0;
         int connectionId;
 
         boolean requestAll = false;
@@ -569,20 +676,12 @@ public class BukkitBridge implements Listener {
             try {
                 synchronized (this) {
                     Server connection = getConnection();
-                    if (connection != null) {
-                        ByteArrayDataOutput data = ByteStreams.newDataOutput();
-                        data.writeByte(this instanceof PlayerBridgeDataCache ? BridgeProtocolConstants.MESSAGE_ID_REQUEST_DATA : BridgeProtocolConstants.MESSAGE_ID_REQUEST_DATA_SERVER);
-                        data.writeInt(connectionId);
-                        data.writeInt(nextOutgoingMessageId++);
-                        data.writeInt(1);
-                        DataStreamUtils.writeDataKey(data, key);
-                        data.writeInt(idMap.getNetId(key));
-                        byte[] message = data.toByteArray();
-                        messagesPendingConfirmation.add(message);
-                        lastMessageSent = System.currentTimeMillis();
-                        connection.sendData(BridgeProtocolConstants.CHANNEL, message);
-                    } else {
+                    if (connection == null) {
                         requestAll = true;
+                    } else if (isWindowFull()) {
+                        pendingRequests.add(key);
+                    } else {
+                        sendRequest(connection, Collections.singletonList(key));
                     }
                 }
             } catch (Throwable th) {
@@ -593,6 +692,50 @@ public class BukkitBridge implements Listener {
             }
         }
 
+        private boolean isWindowFull() {
+            return messagesPendingConfirmation.size() >= BridgeProtocolConstants.MAX_MESSAGES_IN_FLIGHT;
+        }
+
+        private void sendRequest(Server connection, Collection<DataKey<?>> keys) throws IOException {
+            MessageWriter data = MessageWriter.get();
+            data.writeByte(this instanceof PlayerBridgeDataCache ? BridgeProtocolConstants.MESSAGE_ID_REQUEST_DATA : BridgeProtocolConstants.MESSAGE_ID_REQUEST_DATA_SERVER);
+            data.writeInt(connectionId);
+            DataStreamUtils.writeInt(data, nextOutgoingMessageId++, protocolVersion);
+            DataStreamUtils.writeInt(data, keys.size(), protocolVersion);
+            for (DataKey<?> key : keys) {
+                writeDataKey(data, key);
+            }
+            byte[] message = data.toByteArray();
+            messagesPendingConfirmation.add(message);
+            lastMessageSent = System.currentTimeMillis();
+            connection.sendData(BridgeProtocolConstants.CHANNEL, message);
+        }
+
+        /**
+         * Sends the requests held back while the window was full in a single message.
+         */
+        void sendPendingRequests() throws IOException {
+            synchronized (this) {
+                if (pendingRequests.isEmpty() || isWindowFull()) {
+                    return;
+                }
+                Server connection = getConnection();
+                if (connection != null) {
+                    sendRequest(connection, new ArrayList<>(pendingRequests));
+                    pendingRequests.clear();
+                }
+            }
+        }
+
+        private void writeDataKey(DataOutput data, DataKey<?> key) throws IOException {
+            if (protocolVersion >= 6) {
+                DataStreamUtils.writeDataKey(data, key, keyDictionary);
+            } else {
+                DataStreamUtils.writeDataKey(data, key);
+            }
+            DataStreamUtils.writeInt(data, idMap.getNetId(key), protocolVersion);
+        }
+
         void setConnectionId(int connectionId) {
             if (this.connectionId != connectionId) {
                 reset();
@@ -604,10 +747,15 @@ public class BukkitBridge implements Listener {
             synchronized (this) {
                 requestAll = true;
                 messagesPendingConfirmation.clear();
+                keyDictionary.clear();
+                lastReceivedValues.clear();
                 lastConfirmed = 0;
                 nextOutgoingMessageId = 1;
                 nextIncomingMessageId = 1;
+                pendingRequests.clear();
                 lastMessageSent = 0;
+                retransmitTimeout = BridgeProtocolConstants.RETRANSMIT_TIMEOUT_MIN;
+                lastMessageReceived = System.currentTimeMillis();
                 Collection<DataKey<?>> queriedKeys = new ArrayList<>(getActiveKeys());
                 mainLoop.execute(() -> {
                     for (DataKey<?> key : queriedKeys) {
@@ -622,21 +770,8 @@ public class BukkitBridge implements Listener {
                 if (requestAll) {
                     Server connection = getConnection();
                     if (connection != null) {
-                        List<DataKey<?>> keys = new ArrayList<>(getActiveKeys());
-
-                        ByteArrayDataOutput data = ByteStreams.newDataOutput();
-                        data.writeByte(this instanceof PlayerBridgeDataCache ? BridgeProtocolConstants.MESSAGE_ID_REQUEST_DATA : BridgeProtocolConstants.MESSAGE_ID_REQUEST_DATA_SERVER);
-                        data.writeInt(connectionId);
-                        data.writeInt(nextOutgoingMessageId++);
-                        data.writeInt(keys.size());
-                        for (DataKey<?> key : keys) {
-                            DataStreamUtils.writeDataKey(data, key);
-                            data.writeInt(idMap.getNetId(key));
-                        }
-                        byte[] message = data.toByteArray();
-                        messagesPendingConfirmation.add(message);
-                        lastMessageSent = System.currentTimeMillis();
-                        connection.sendData(BridgeProtocolConstants.CHANNEL, message);
+                        pendingRequests.clear();
+                        sendRequest(connection, new ArrayList<>(getActiveKeys()));
                     }
                     requestAll = false;
                 }
@@ -17,93 +17,290 @@
 
 package codecrafter47.bungeetablistplus.cache;
 
-import codecrafter47.bungeetablistplus.BungeeTabListPlus;
-import net.md_5.bungee.api.ProxyServer;
+import codecrafter47.bungeetablistplus.common.network.MessageReader;
+import codecrafter47.bungeetablistplus.common.network.MessageWriter;
+import codecrafter47.bungeetablistplus.util.PrefixTrie;
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.Multiset;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
 
-public class Cache implements Serializable {
+/**
+ * Information reported by the bridge plugins, kept across restarts so tab lists can be created before all servers
+ * are connected.
+ * <p>
+ * The file starts with a magic number and the format version, followed by one record per server and list. Each
+ * record is prefixed by its length and a checksum, so a damaged record only loses the entries of that record.
+ */
+public class Cache {
+
+    private static final int MAGIC = 0x42544C43; // BTLC
+    private static final int VERSION = 1;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private static final byte RECORD_PAPI_PREFIXES = 0;
+    private static final byte RECORD_CUSTOM_PLACEHOLDERS_BRIDGE = 1;
+    private static final byte RECORD_CUSTOM_SERVER_PLACEHOLDERS_BRIDGE = 2;
+
+    private final File file;
+    private final Logger logger;
+    // held while writing the file, so concurrent saves don't replace each others temporary file
+    private final Object fileLock = new Object();
+
+    private final Map<String, List<String>> cachedPAPIPrefixes = new HashMap<>();
+    private final Map<String, List<String>> cachedCustomPlaceholdersBridge = new HashMap<>();
+    private final Map<String, List<String>> cachedCustomServerPlaceholdersBridge = new HashMap<>();
 
-    private transient File file;
+    // entries of the lists above of all servers registered with the proxy, maintained by the update methods and
+    // setRegisteredServers. Entries of other servers are kept in the lists as the servers may be added later on.
+    private Set<String> registeredServers = Collections.emptySet();
+    private final PrefixTrie papiPrefixIndex = new PrefixTrie();
+    private final Multiset<String> customPlaceholdersBridgeIndex = ConcurrentHashMultiset.create();
+    private final Multiset<String> customServerPlaceholdersBridgeIndex = ConcurrentHashMultiset.create();
 
-    private Map<String, List<String>> cachedPAPIPrefixes = new HashMap<>();
-    private Map<String, List<String>> cachedCustomPlaceholdersBridge = new HashMap<>();
-    private Map<String, List<String>> cachedCustomServerPlaceholdersBridge = new HashMap<>();
+    // incremented on every change, the file is only written if it differs from the saved revision
+    private int revision = 0;
+    private int savedRevision = 0;
 
-    public synchronized void updatePAPIPrefixes(String server, List<String> prefixes) {
-        cachedPAPIPrefixes.put(server, new ArrayList<>(prefixes));
+    public synchronized boolean updatePAPIPrefixes(String server, List<String> prefixes) {
+        return update(cachedPAPIPrefixes, server, prefixes, papiPrefixIndex::add, papiPrefixIndex::remove);
     }
 
-    public synchronized Set<String> getPAPIPrefixes() {
-        return getServerNames()
-                .map(cachedPAPIPrefixes::get)
-                .filter(Objects::nonNull)
-                .flatMap(List::stream)
-                .collect(Collectors.toSet());
+    /**
+     * @return whether the placeholder starts with the prefix of a PlaceholderAPI expansion installed on any server
+     */
+    public boolean hasPAPIPrefix(String placeholder) {
+        return papiPrefixIndex.containsPrefixOf(placeholder);
     }
 
-    private Stream<String> getServerNames() {
-        for (int i = 0; i < 3; i++) {
-            try {
-                return ProxyServer.getInstance().getServers().keySet()
-                        .stream()
-                        .filter(Objects::nonNull);
-            } catch (Throwable ignored) {
+    public synchronized boolean updateCustomPlaceholdersBridge(String server, List<String> prefixes) {
+        return update(cachedCustomPlaceholdersBridge, server, prefixes, customPlaceholdersBridgeIndex::add, customPlaceholdersBridgeIndex::remove);
+    }
+
+    public boolean isCustomPlaceholderBridge(String placeholder) {
+        return customPlaceholdersBridgeIndex.contains(placeholder);
+    }
+
+    public synchronized boolean updateCustomServerPlaceholdersBridge(String server, List<String> prefixes) {
+        return update(cachedCustomServerPlaceholdersBridge, server, prefixes, customServerPlaceholdersBridgeIndex::add, customServerPlaceholdersBridgeIndex::remove);
+    }
+
+    public Set<String> getCustomServerPlaceholdersBridge() {
+        return Collections.unmodifiableSet(customServerPlaceholdersBridgeIndex.elementSet());
+    }
+
+    // returns whether the entries of the server changed, i.e. whether the file needs to be saved
+    private boolean update(Map<String, List<String>> lists, String server, List<String> entries, Consumer<String> addToIndex, Consumer<String> removeFromIndex) {
+        List<String> old = lists.get(server);
+        if (!entries.equals(old)) {
+            List<String> copy = new ArrayList<>(entries);
+            lists.put(server, copy);
+            if (registeredServers.contains(server)) {
+                // add before removing, so entries contained in both lists are found by concurrent lookups
+                copy.forEach(addToIndex);
+                if (old != null) {
+                    old.forEach(removeFromIndex);
+                }
             }
+            revision++;
+            return true;
         }
-        return Stream.empty();
+        return false;
     }
 
-    public synchronized void updateCustomPlaceholdersBridge(String server, List<String> prefixes) {
-        cachedCustomPlaceholdersBridge.put(server, new ArrayList<>(prefixes));
+    /**
+     * Sets the servers registered with the proxy. Lookups only consider the entries of these servers.
+     */
+    public synchronized void setRegisteredServers(Collection<String> servers) {
+        Set<String> registeredServers = new HashSet<>(servers);
+        for (String server : registeredServers) {
+            if (!this.registeredServers.contains(server)) {
+                forEachEntry(cachedPAPIPrefixes, server, papiPrefixIndex::add);
+                forEachEntry(cachedCustomPlaceholdersBridge, server, customPlaceholdersBridgeIndex::add);
+                forEachEntry(cachedCustomServerPlaceholdersBridge, server, customServerPlaceholdersBridgeIndex::add);
+            }
+        }
+        for (String server : this.registeredServers) {
+            if (!registeredServers.contains(server)) {
+                forEachEntry(cachedPAPIPrefixes, server, papiPrefixIndex::remove);
+                forEachEntry(cachedCustomPlaceholdersBridge, server, customPlaceholdersBridgeIndex::remove);
+                forEachEntry(cachedCustomServerPlaceholdersBridge, server, customServerPlaceholdersBridgeIndex::remove);
+            }
+        }
+        this.registeredServers = registeredServers;
     }
 
-    public synchronized Set<String> getCustomPlaceholdersBridge() {
-        return getServerNames()
-                .map(cachedCustomPlaceholdersBridge::get)
-                .filter(Objects::nonNull)
-                .flatMap(List::stream)
-                .collect(Collectors.toSet());
+    private static void forEachEntry(Map<String, List<String>> lists, String server, Consumer<String> action) {
+        List<String> entries = lists.get(server);
+        if (entries != null) {
+            entries.forEach(action);
+        }
+    }
+
+    synchronized List<String> getPAPIPrefixes(String server) {
+        return cachedPAPIPrefixes.get(server);
     }
 
-    public synchronized void updateCustomServerPlaceholdersBridge(String server, List<String> prefixes) {
-        cachedCustomServerPlaceholdersBridge.put(server, new ArrayList<>(prefixes));
+    synchronized List<String> getCustomPlaceholdersBridge(String server) {
+        return cachedCustomPlaceholdersBridge.get(server);
     }
 
-    public synchronized Set<String> getCustomServerPlaceholdersBridge() {
-        return getServerNames()
-                .map(cachedCustomServerPlaceholdersBridge::get)
-                .filter(Objects::nonNull)
-                .flatMap(List::stream)
-                .collect(Collectors.toSet());
+    synchronized List<String> getCustomServerPlaceholdersBridge(String server) {
+        return cachedCustomServerPlaceholdersBridge.get(server);
     }
 
-    private Cache(File file) {
+    private Cache(File file, Logger logger) {
         this.file = file;
+        this.logger = logger;
     }
 
-    public static Cache load(File file) {
-        try (FileInputStream is = new FileInputStream(file)) {
-            ObjectInputStream ois = new ObjectInputStream(is);
-            Cache cache = (Cache) ois.readObject();
-            cache.file = file;
+    public static Cache load(File file, Logger logger) {
+        Cache cache = new Cache(file, logger);
+        if (!file.exists()) {
             return cache;
-        } catch (Throwable th) {
-            return new Cache(file);
         }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                // written by an old version, the content is rebuilt once the servers connect
+                return cache;
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                logger.warning("Ignoring " + file.getName() + ", unknown format version " + version);
+                return cache;
+            }
+            CRC32 crc = new CRC32();
+            int skippedRecords = 0;
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException ignored) {
+                    break;
+                }
+                if (length < 0 || length > MAX_RECORD_SIZE) {
+                    throw new IOException("Invalid record length " + length);
+                }
+                int checksum = in.readInt();
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    skippedRecords++;
+                    continue;
+                }
+                try {
+                    cache.readRecord(MessageReader.of(ByteBuffer.wrap(payload)));
+                } catch (IOException | RuntimeException e) {
+                    skippedRecords++;
+                }
+            }
+            if (skippedRecords != 0) {
+                logger.warning("Skipped " + skippedRecords + " damaged records in " + file.getName());
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to read " + file.getName() + " completely, keeping the records read so far: " + e);
+        }
+        return cache;
     }
 
-    public synchronized void save() {
-        try (FileOutputStream os = new FileOutputStream(file)) {
-            ObjectOutputStream oos = new ObjectOutputStream(os);
-            oos.writeObject(this);
-            oos.flush();
-        } catch (Throwable th) {
-            BungeeTabListPlus.getInstance().getLogger().log(Level.SEVERE, "Failed to write file: " + th.getMessage(), th);
+    private void readRecord(DataInput in) throws IOException {
+        byte type = in.readByte();
+        String server = in.readUTF();
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Invalid list size " + size);
+        }
+        List<String> entries = new ArrayList<>(Math.min(size, 1024));
+        for (int i = 0; i < size; i++) {
+            entries.add(in.readUTF());
+        }
+        switch (type) {
+            case RECORD_PAPI_PREFIXES:
+                cachedPAPIPrefixes.put(server, entries);
+                break;
+            case RECORD_CUSTOM_PLACEHOLDERS_BRIDGE:
+                cachedCustomPlaceholdersBridge.put(server, entries);
+                break;
+            case RECORD_CUSTOM_SERVER_PLACEHOLDERS_BRIDGE:
+                cachedCustomServerPlaceholdersBridge.put(server, entries);
+                break;
+            default:
+                // written by a newer version
+                break;
+        }
+    }
+
+    /**
+     * Writes the cache to disk if it has changed since it has last been saved. The file is replaced atomically, so it is
+     * not damaged if the proxy crashes while saving.
+     * <p>
+     * The cache can be updated while the file is written. Should be called from a background thread.
+     */
+    public void save() {
+        int revision;
+        Map<Byte, Map<String, List<String>>> snapshot = new LinkedHashMap<>();
+        synchronized (this) {
+            if (this.revision == savedRevision) {
+                return;
+            }
+            revision = this.revision;
+            snapshot.put(RECORD_PAPI_PREFIXES, new HashMap<>(cachedPAPIPrefixes));
+            snapshot.put(RECORD_CUSTOM_PLACEHOLDERS_BRIDGE, new HashMap<>(cachedCustomPlaceholdersBridge));
+            snapshot.put(RECORD_CUSTOM_SERVER_PLACEHOLDERS_BRIDGE, new HashMap<>(cachedCustomServerPlaceholdersBridge));
+        }
+        synchronized (fileLock) {
+            File tempFile = new File(file.getPath() + ".tmp");
+            try {
+                FileOutputStream fileOut = new FileOutputStream(tempFile);
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    CRC32 crc = new CRC32();
+                    for (Map.Entry<Byte, Map<String, List<String>>> section : snapshot.entrySet()) {
+                        for (Map.Entry<String, List<String>> entry : section.getValue().entrySet()) {
+                            MessageWriter record = MessageWriter.get();
+                            record.writeByte(section.getKey());
+                            record.writeUTF(entry.getKey());
+                            record.writeInt(entry.getValue().size());
+                            for (String s : entry.getValue()) {
+                                record.writeUTF(s);
+                            }
+                            byte[] payload = record.toByteArray();
+                            crc.reset();
+                            crc.update(payload, 0, payload.length);
+                            out.writeInt(payload.length);
+                            out.writeInt((int) crc.getValue());
+                            out.write(payload);
+                        }
+                    }
+                    // the content must be on disk before the rename, otherwise a crash can leave an empty file behind
+                    out.flush();
+                    fileOut.getFD().sync();
+                }
+                try {
+                    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                synchronized (this) {
+                    if (revision - savedRevision > 0) {
+                        savedRevision = revision;
+                    }
+                }
+            } catch (Throwable th) {
+                logger.log(Level.SEVERE, "Failed to write file: " + th.getMessage(), th);
+            }
         }
     }
 }
@@ -111,6 +111,52 @@ public class MainConfig implements UpdateableConfig {
     })
     public boolean experimentalTabCompleteSmileys = false;
 
+    @Comment({
+            "Number of threads used to query player and server data.",
+            "Larger networks can increase this to spread the work across multiple cores.",
+            "Applying the updates and notifying the tab lists always happens on the main plugin thread,",
+            "so this does not speed up processing the updates.",
+            "Changing this option requires a restart."
+    })
+    public int dataUpdateThreads = 1;
+
+    @Comment({
+            "Encodes tab list entries that are sent to many players only once per protocol version",
+            "and sends the same encoded packet to all of them. Reduces cpu and memory usage on",
+            "larger networks."
+    })
+    public boolean experimentalSharedPacketEncoding = false;
+
+    @Comment({
+            "Minimum time in milliseconds between two updates of a players tab list.",
+            "Changes within that time are combined and the tab lists of all players are",
+            "updated at the same time. Set to 50 to update at most once per client tick.",
+            "With the default of 0 changes are sent immediately."
+    })
+    public int tabListUpdateInterval = 0;
+
+    @Comment({
+            "Maximum time in milliseconds spent on querying player and server data each second.",
+            "Players and servers skipped because the time is exceeded are queried during the next",
+            "second, including data which would have been due in the skipped second."
+    })
+    public int dataUpdateTimeBudget = 500;
+
+    @Comment({
+            "Time in milliseconds after which a warning is logged if a third-party placeholder",
+            "has not been resolved. Up to two third-party placeholders are resolved at the same time,",
+            "separately from other data. A placeholder exceeding this time no longer counts towards",
+            "that limit, so a placeholder that hangs does not delay the others."
+    })
+    public int placeholderTimeout = 1000;
+
+    @Comment({
+            "Time in milliseconds to wait before refreshing the tab lists when new placeholders",
+            "become available, e.g. when servers connect. Changes within that time are combined",
+            "into a single refresh."
+    })
+    public int softReloadDelay = 1000;
+
     public transient boolean needWrite = false;
 
     @Override
@@ -142,7 +188,13 @@ public class MainConfig implements UpdateableConfig {
         val newConfigOptions = ImmutableList.<String>of(
                 "disableCustomTabListForSpectators",
                 "experimentalTabCompleteFixForTabSize80",
-                "experimentalTabCompleteSmileys"
+                "experimentalTabCompleteSmileys",
+                "dataUpdateThreads",
+                "experimentalSharedPacketEncoding",
+                "tabListUpdateInterval",
+                "dataUpdateTimeBudget",
+                "placeholderTimeout",
+                "softReloadDelay"
         );
 
         for (String option : newConfigOptions) {
@@ -0,0 +1,108 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.data;
+
+import codecrafter47.bungeetablistplus.managers.BungeePlayerProvider;
+import codecrafter47.bungeetablistplus.managers.DataManager;
+import codecrafter47.bungeetablistplus.player.BungeePlayer;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import de.codecrafter47.data.api.DataKey;
+import de.codecrafter47.data.bungee.api.BungeeData;
+import net.luckperms.api.LuckPermsProvider;
+import net.luckperms.api.event.context.ContextUpdateEvent;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+import net.md_5.bungee.api.ProxyServer;
+import net.md_5.bungee.api.connection.ProxiedPlayer;
+import net.md_5.bungee.api.event.ServerSwitchEvent;
+import net.md_5.bungee.api.plugin.Listener;
+import net.md_5.bungee.api.plugin.Plugin;
+import net.md_5.bungee.event.EventHandler;
+import net.md_5.bungee.event.EventPriority;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pushes changes of LuckPerms data to the {@link DataManager} using the LuckPerms event bus, so the LuckPerms and
+ * permission keys don't need to be polled.
+ * <p>
+ * Prefix, suffix and permissions may depend on contexts such as the server of the player. Changes of the contexts
+ * don't cause a recalculation of the user data, so the keys are also refreshed when the contexts of a player are
+ * updated and when the player switches servers.
+ * <p>
+ * Must only be loaded if LuckPerms is installed.
+ */
+public class LuckPermsHook implements Listener {
+
+    private static final List<DataKey<?>> KEYS = ImmutableList.of(
+            BungeeData.LuckPerms_Prefix,
+            BungeeData.LuckPerms_Suffix,
+            BungeeData.LuckPerms_PrimaryGroup,
+            BungeeData.LuckPerms_Weight,
+            BungeeData.permission(""));
+
+    private final Plugin plugin;
+    private final DataManager dataManager;
+    private final BungeePlayerProvider bungeePlayerProvider;
+    private final Set<String> keyIds;
+
+    public LuckPermsHook(Plugin plugin, DataManager dataManager, BungeePlayerProvider bungeePlayerProvider) {
+        this.plugin = plugin;
+        this.dataManager = dataManager;
+        this.bungeePlayerProvider = bungeePlayerProvider;
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        for (DataKey<?> key : KEYS) {
+            builder.add(key.getId());
+        }
+        this.keyIds = builder.build();
+    }
+
+    public void register() {
+        LuckPermsProvider.get().getEventBus().subscribe(plugin, UserDataRecalculateEvent.class, this::onUserDataRecalculate);
+        LuckPermsProvider.get().getEventBus().subscribe(plugin, ContextUpdateEvent.class, this::onContextUpdate);
+        ProxyServer.getInstance().getPluginManager().registerListener(plugin, this);
+        for (DataKey<?> key : KEYS) {
+            dataManager.setRefreshInterval(key, DataManager.EVENT_DRIVEN);
+        }
+    }
+
+    private void onUserDataRecalculate(UserDataRecalculateEvent event) {
+        ProxiedPlayer proxiedPlayer = ProxyServer.getInstance().getPlayer(event.getUser().getUniqueId());
+        if (proxiedPlayer != null) {
+            refresh(proxiedPlayer);
+        }
+    }
+
+    private void onContextUpdate(ContextUpdateEvent event) {
+        event.getSubject(ProxiedPlayer.class).ifPresent(this::refresh);
+    }
+
+    // runs after LuckPerms has updated the server context of the player
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onServerSwitch(ServerSwitchEvent event) {
+        refresh(event.getPlayer());
+    }
+
+    private void refresh(ProxiedPlayer proxiedPlayer) {
+        BungeePlayer player = bungeePlayerProvider.getPlayerIfPresent(proxiedPlayer);
+        if (player != null) {
+            dataManager.refreshPlayerData(player, keyIds);
+        }
+    }
+}
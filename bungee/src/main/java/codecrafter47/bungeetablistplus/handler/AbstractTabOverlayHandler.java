@@ -23,8 +23,14 @@ import codecrafter47.bungeetablistplus.util.BitSet;
 import codecrafter47.bungeetablistplus.util.ConcurrentBitSet;
 import codecrafter47.bungeetablistplus.util.Property119Handler;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import de.codecrafter47.bungeetablistplus.bungee.compat.PacketUtil;
 import de.codecrafter47.bungeetablistplus.bungee.compat.PropertyUtil;
 import de.codecrafter47.taboverlay.Icon;
@@ -45,7 +51,9 @@ import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
@@ -59,8 +67,19 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
     private static final boolean OPTION_ENABLE_CONSISTENCY_CHECKS = true;
 
     private static final String EMPTY_JSON_TEXT = "{\"text\":\"\"}";
+
+    // shared by all handlers, most slot texts (e.g. player names) are displayed to many players
+    private static final LoadingCache<String, String> JSON_TEXT_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(8192)
+            .build(CacheLoader.from(ChatFormat::formattedTextToJson));
+
     protected static final String[][] EMPTY_PROPERTIES_ARRAY = new String[0][];
 
+    // shared by all handlers, weak keys are compared by identity and icons are mostly reused
+    private static final LoadingCache<Icon, String[][]> ICON_PROPERTIES_CACHE = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(CacheLoader.from((Icon icon) -> toPropertiesArray(icon.getTextureProperty())));
+
     private static final boolean TEAM_COLLISION_RULE_SUPPORTED;
     private static final boolean TEAM_COLOR_IS_BYTE;
     private static final boolean USE_PROTOCOL_PROPERTY_TYPE;
@@ -236,6 +255,80 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
 
     protected abstract void sendPacket(DefinedPacket packet);
 
+    /**
+     * Sends a packet with content which is likely sent to other players as well, such as the player list items of
+     * custom slots. Implementations sharing the encoded packet can use {@link #getContentToken(PlayerListItem)} to
+     * identify its content.
+     */
+    protected void sendSharedPacket(PlayerListItem packet) {
+        sendPacket(packet);
+    }
+
+    /**
+     * Computes a hash of all fields of the player list items sent by this class. Packets with the same token are
+     * encoded identically.
+     */
+    static HashCode getContentToken(PlayerListItem packet) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        hasher.putInt(packet.getAction().ordinal());
+        for (PlayerListItem.Item item : packet.getItems()) {
+            UUID uuid = item.getUuid();
+            hasher.putLong(uuid.getMostSignificantBits());
+            hasher.putLong(uuid.getLeastSignificantBits());
+            putString(hasher, item.getUsername());
+            putString(hasher, item.getDisplayName());
+            hasher.putInt(item.getPing());
+            hasher.putInt(item.getGamemode());
+            if (USE_PROTOCOL_PROPERTY_TYPE) {
+                Property119Handler.putProperties(hasher, item);
+            } else {
+                String[][] properties = PropertyUtil.getProperties(item);
+                hasher.putInt(properties != null ? properties.length : -1);
+                if (properties != null) {
+                    for (String[] property : properties) {
+                        hasher.putInt(property.length);
+                        for (String s : property) {
+                            putString(hasher, s);
+                        }
+                    }
+                }
+            }
+        }
+        return hasher.hash();
+    }
+
+    private static void putString(Hasher hasher, @Nullable String s) {
+        if (s == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(s.length());
+            hasher.putUnencodedChars(s);
+        }
+    }
+
+    /**
+     * Minimum time in milliseconds between two updates of the tab list. Changes within that time are sent together.
+     * Updates are aligned to multiples of the interval, so the tab lists of all players are updated at the same time.
+     * Each tab list is still updated separately, packets are not combined across viewers.
+     *
+     * @return the interval, 0 to send changes immediately
+     */
+    protected long getUpdateInterval() {
+        return 0;
+    }
+
+    /**
+     * Called before the packets of an update are sent.
+     */
+    protected void onUpdateStart() {
+    }
+
+    /**
+     * Called after all packets of an update have been sent.
+     */
+    protected void onUpdateComplete() {
+    }
+
     @Override
     public PacketListenerResult onPlayerListPacket(PlayerListItem packet) {
         switch (packet.getAction()) {
@@ -507,7 +600,13 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
     private void scheduleUpdate() {
         if (this.updateScheduledFlag.compareAndSet(false, true)) {
             try {
-                eventLoopExecutor.execute(updateTask);
+                long interval = getUpdateInterval();
+                if (interval > 0 && eventLoopExecutor instanceof ScheduledExecutorService) {
+                    long delay = interval - System.currentTimeMillis() % interval;
+                    ((ScheduledExecutorService) eventLoopExecutor).schedule(updateTask, delay, TimeUnit.MILLISECONDS);
+                } else {
+                    eventLoopExecutor.execute(updateTask);
+                }
             } catch (RejectedExecutionException ignored) {
             }
         }
@@ -519,23 +618,28 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
         }
         updateScheduledFlag.set(false);
 
-        // update content handler
-        AbstractContentOperationModeHandler<?> contentHandler;
-        while (null != (contentHandler = nextActiveContentHandlerQueue.poll())) {
-            this.activeContentHandler.invalidate();
-            contentHandler.onActivated(this.activeContentHandler);
-            this.activeContentHandler = contentHandler;
-        }
-        this.activeContentHandler.update();
-
-        // update header and footer handler
-        AbstractHeaderFooterOperationModeHandler<?> heaerFooterHandler;
-        while (null != (heaerFooterHandler = nextActiveHeaderFooterHandlerQueue.poll())) {
-            this.activeHeaderFooterHandler.invalidate();
-            heaerFooterHandler.onActivated(this.activeHeaderFooterHandler);
-            this.activeHeaderFooterHandler = heaerFooterHandler;
+        onUpdateStart();
+        try {
+            // update content handler
+            AbstractContentOperationModeHandler<?> contentHandler;
+            while (null != (contentHandler = nextActiveContentHandlerQueue.poll())) {
+                this.activeContentHandler.invalidate();
+                contentHandler.onActivated(this.activeContentHandler);
+                this.activeContentHandler = contentHandler;
+            }
+            this.activeContentHandler.update();
+
+            // update header and footer handler
+            AbstractHeaderFooterOperationModeHandler<?> heaerFooterHandler;
+            while (null != (heaerFooterHandler = nextActiveHeaderFooterHandlerQueue.poll())) {
+                this.activeHeaderFooterHandler.invalidate();
+                heaerFooterHandler.onActivated(this.activeHeaderFooterHandler);
+                this.activeHeaderFooterHandler = heaerFooterHandler;
+            }
+            this.activeHeaderFooterHandler.update();
+        } finally {
+            onUpdateComplete();
         }
-        this.activeHeaderFooterHandler.update();
     }
 
     private abstract class AbstractContentOperationModeHandler<T extends AbstractContentTabOverlay> extends OperationModeHandler<T> {
@@ -1044,11 +1148,7 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
                                 PlayerListItem.Item item1 = new PlayerListItem.Item();
                                 item1.setUuid(customSlotUuid);
                                 item1.setUsername(slotUsername[index] = getCustomSlotUsername(index));
-                                if(USE_PROTOCOL_PROPERTY_TYPE) {
-                                    Property119Handler.setProperties(item1, toPropertiesArray(icon.getTextureProperty()));
-                                } else {
-                                    PropertyUtil.setProperties(item1, toPropertiesArray(icon.getTextureProperty()));
-                                }
+                                setIconProperties(item1, icon);
                                 item1.setDisplayName(tabOverlay.text[index]);
                                 item1.setPing(tabOverlay.ping[index]);
                                 item1.setGamemode(0);
@@ -1287,11 +1387,7 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
                         PlayerListItem.Item item1 = new PlayerListItem.Item();
                         item1.setUuid(customSlotUuid);
                         item1.setUsername(slotUsername[index] = getCustomSlotUsername(index));
-                        if(USE_PROTOCOL_PROPERTY_TYPE) {
-                            Property119Handler.setProperties(item1, toPropertiesArray(icon.getTextureProperty()));
-                        } else {
-                            PropertyUtil.setProperties(item1, toPropertiesArray(icon.getTextureProperty()));
-                        }
+                        setIconProperties(item1, icon);
                         item1.setDisplayName(tabOverlay.text[index]);
                         item1.setPing(tabOverlay.ping[index]);
                         item1.setGamemode(0);
@@ -1575,11 +1671,7 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
                                 PlayerListItem.Item item1 = new PlayerListItem.Item();
                                 item1.setUuid(customSlotUuid);
                                 item1.setUsername(slotUsername[index] = getCustomSlotUsername(index));
-                                if(USE_PROTOCOL_PROPERTY_TYPE) {
-                                    Property119Handler.setProperties(item1, toPropertiesArray(icon.getTextureProperty()));
-                                } else {
-                                    PropertyUtil.setProperties(item1, toPropertiesArray(icon.getTextureProperty()));
-                                }
+                                setIconProperties(item1, icon);
                                 item1.setDisplayName(tabOverlay.text[index]);
                                 item1.setPing(tabOverlay.ping[index]);
                                 item1.setGamemode(0);
@@ -1607,11 +1699,7 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
                                 PlayerListItem.Item item1 = new PlayerListItem.Item();
                                 item1.setUuid(customSlotUuid);
                                 item1.setUsername(slotUsername[index] = getCustomSlotUsername(index));
-                                if(USE_PROTOCOL_PROPERTY_TYPE) {
-                                    Property119Handler.setProperties(item1, toPropertiesArray(icon.getTextureProperty()));
-                                } else {
-                                    PropertyUtil.setProperties(item1, toPropertiesArray(icon.getTextureProperty()));
-                                }
+                                setIconProperties(item1, icon);
                                 item1.setDisplayName(tabOverlay.text[index]);
                                 item1.setPing(tabOverlay.ping[index]);
                                 item1.setGamemode(0);
@@ -1983,11 +2071,7 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
                                 PlayerListItem.Item item1 = new PlayerListItem.Item();
                                 item1.setUuid(customSlotUuid);
                                 item1.setUsername(slotUsername[index] = getCustomSlotUsername(index));
-                                if(USE_PROTOCOL_PROPERTY_TYPE) {
-                                    Property119Handler.setProperties(item1, toPropertiesArray(icon.getTextureProperty()));
-                                } else {
-                                    PropertyUtil.setProperties(item1, toPropertiesArray(icon.getTextureProperty()));
-                                }
+                                setIconProperties(item1, icon);
                                 item1.setDisplayName(tabOverlay.text[index]);
                                 item1.setPing(tabOverlay.ping[index]);
                                 item1.setGamemode(0);
@@ -2026,11 +2110,7 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
                     PlayerListItem.Item item1 = new PlayerListItem.Item();
                     item1.setUuid(customSlotUuid);
                     item1.setUsername(slotUsername[index] = getCustomSlotUsername(index));
-                    if(USE_PROTOCOL_PROPERTY_TYPE) {
-                        Property119Handler.setProperties(item1, toPropertiesArray(icon.getTextureProperty()));
-                    } else {
-                        PropertyUtil.setProperties(item1, toPropertiesArray(icon.getTextureProperty()));
-                    }
+                    setIconProperties(item1, icon);
                     item1.setDisplayName(tabOverlay.text[index]);
                     item1.setPing(tabOverlay.ping[index]);
                     item1.setGamemode(0);
@@ -2071,19 +2151,19 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
                 PlayerListItem packet = new PlayerListItem();
                 packet.setAction(PlayerListItem.Action.REMOVE_PLAYER);
                 packet.setItems(itemQueueRemovePlayer.toArray(new PlayerListItem.Item[itemQueueRemovePlayer.size()]));
-                sendPacket(packet);
+                sendSharedPacket(packet);
                 itemQueueRemovePlayer.clear();
             }
             if (!itemQueueAddPlayer.isEmpty()) {
                 PlayerListItem packet = new PlayerListItem();
                 packet.setAction(PlayerListItem.Action.ADD_PLAYER);
                 packet.setItems(itemQueueAddPlayer.toArray(new PlayerListItem.Item[itemQueueAddPlayer.size()]));
-                sendPacket(packet);
+                sendSharedPacket(packet);
                 if (is18) {
                     packet = new PlayerListItem();
                     packet.setAction(PlayerListItem.Action.UPDATE_DISPLAY_NAME);
                     packet.setItems(itemQueueAddPlayer.toArray(new PlayerListItem.Item[itemQueueAddPlayer.size()]));
-                    sendPacket(packet);
+                    sendSharedPacket(packet);
                 }
                 itemQueueAddPlayer.clear();
             }
@@ -2091,14 +2171,14 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
                 PlayerListItem packet = new PlayerListItem();
                 packet.setAction(PlayerListItem.Action.UPDATE_DISPLAY_NAME);
                 packet.setItems(itemQueueUpdateDisplayName.toArray(new PlayerListItem.Item[itemQueueUpdateDisplayName.size()]));
-                sendPacket(packet);
+                sendSharedPacket(packet);
                 itemQueueUpdateDisplayName.clear();
             }
             if (!itemQueueUpdatePing.isEmpty()) {
                 PlayerListItem packet = new PlayerListItem();
                 packet.setAction(PlayerListItem.Action.UPDATE_LATENCY);
                 packet.setItems(itemQueueUpdatePing.toArray(new PlayerListItem.Item[itemQueueUpdatePing.size()]));
-                sendPacket(packet);
+                sendSharedPacket(packet);
                 itemQueueUpdatePing.clear();
             }
         }
@@ -2118,6 +2198,7 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
         final UUID[] uuid;
         final Icon[] icon;
         final String[] text;
+        final String[] formattedText;
         final int[] ping;
 
         final AtomicInteger batchUpdateRecursionLevel;
@@ -2133,6 +2214,7 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
             Arrays.fill(this.icon, Icon.DEFAULT_STEVE);
             this.text = new String[80];
             Arrays.fill(this.text, EMPTY_JSON_TEXT);
+            this.formattedText = new String[80];
             this.ping = new int[80];
             this.batchUpdateRecursionLevel = new AtomicInteger(0);
             this.dirtyFlagSize = true;
@@ -2186,7 +2268,11 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
         }
 
         void setTextInternal(int index, @Nonnull @NonNull String text) {
-            String jsonText = ChatFormat.formattedTextToJson(text);
+            if (text.equals(this.formattedText[index])) {
+                return;
+            }
+            this.formattedText[index] = text;
+            String jsonText = JSON_TEXT_CACHE.getUnchecked(text);
             if (!jsonText.equals(this.text[index])) {
                 this.text[index] = jsonText;
                 dirtyFlagsText.set(index);
@@ -2273,6 +2359,7 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
                         uuid[index] = null;
                         icon[index] = Icon.DEFAULT_STEVE;
                         text[index] = EMPTY_JSON_TEXT;
+                        formattedText[index] = null;
                         ping[index] = 0;
                     }
                 }
@@ -2284,6 +2371,7 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
                         uuid[index] = null;
                         icon[index] = Icon.DEFAULT_STEVE;
                         text[index] = EMPTY_JSON_TEXT;
+                        formattedText[index] = null;
                         ping[index] = 0;
                     }
                 }
@@ -2576,6 +2664,14 @@ public abstract class AbstractTabOverlayHandler implements PacketHandler, TabOve
         return column * 20 + row;
     }
 
+    private static void setIconProperties(PlayerListItem.Item item, Icon icon) {
+        if (USE_PROTOCOL_PROPERTY_TYPE) {
+            Property119Handler.setProperties(item, icon);
+        } else {
+            PropertyUtil.setProperties(item, ICON_PROPERTIES_CACHE.getUnchecked(icon));
+        }
+    }
+
     private static String[][] toPropertiesArray(ProfileProperty textureProperty) {
         if (textureProperty == null) {
             return EMPTY_PROPERTIES_ARRAY;
@@ -84,8 +84,7 @@ public class RewriteLogic extends AbstractPacketHandler {
                             LoginResult loginResult = player.getPendingConnection().getLoginProfile();
                             if (loginResult != null) {
                                 if(USE_PROTOCOL_PROPERTY_TYPE) {
-                                    String[][] properties = Property119Handler.getProperties(loginResult);
-                                    Property119Handler.setProperties(item, properties);
+                                    Property119Handler.setProperties(item, loginResult);
                                 } else {
                                     String[][] properties = PropertyUtil.getProperties(loginResult);
                                     PropertyUtil.setProperties(item, properties);
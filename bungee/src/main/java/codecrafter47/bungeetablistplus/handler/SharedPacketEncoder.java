@@ -0,0 +1,166 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.handler;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.util.IllegalReferenceCountException;
+import net.md_5.bungee.protocol.DefinedPacket;
+import net.md_5.bungee.protocol.MinecraftEncoder;
+import net.md_5.bungee.protocol.Protocol;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes packets sent to many players only once per protocol version.
+ * <p>
+ * Encoded packets are kept for a short time. They are looked up using a token computed by the caller from the content
+ * of the packet, so the packets themselves are neither hashed nor retained. Each caller receives a retained duplicate
+ * of the shared buffer, which is released by the channel after it has been written.
+ * <p>
+ * Packets are encoded for the {@link Protocol#GAME game protocol}. They must only be written to channels currently
+ * using that protocol, see {@link #isGameProtocol(Channel)}.
+ */
+final class SharedPacketEncoder {
+
+    static final SharedPacketEncoder INSTANCE = new SharedPacketEncoder();
+
+    @Nullable
+    private static final Field ENCODER_PROTOCOL_FIELD;
+
+    static {
+        Field field;
+        try {
+            field = MinecraftEncoder.class.getDeclaredField("protocol");
+            field.setAccessible(true);
+        } catch (NoSuchFieldException | RuntimeException e) {
+            // unknown version of BungeeCord, don't use shared packets
+            field = null;
+        }
+        ENCODER_PROTOCOL_FIELD = field;
+    }
+
+    private final Map<Integer, Encoder> encoders = new ConcurrentHashMap<>();
+    private final Cache<Key, ByteBuf> cache = CacheBuilder.newBuilder()
+            .maximumSize(1024)
+            .expireAfterWrite(5, TimeUnit.SECONDS)
+            .removalListener((RemovalListener<Key, ByteBuf>) notification -> notification.getValue().release())
+            .build();
+
+    private SharedPacketEncoder() {
+    }
+
+    /**
+     * Check whether packets encoded by this class can be written to the channel. Clients of Minecraft 1.20.2 and later
+     * switch to the configuration protocol while changing servers.
+     *
+     * @param channel the channel of the player
+     * @return true if the channel currently encodes packets of the game protocol
+     */
+    static boolean isGameProtocol(@Nonnull Channel channel) {
+        if (ENCODER_PROTOCOL_FIELD == null) {
+            return false;
+        }
+        MinecraftEncoder encoder = channel.pipeline().get(MinecraftEncoder.class);
+        if (encoder == null) {
+            return false;
+        }
+        try {
+            return ENCODER_PROTOCOL_FIELD.get(encoder) == Protocol.GAME;
+        } catch (IllegalAccessException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Get the encoded packet, including the packet id.
+     *
+     * @param packet          the packet
+     * @param token           hash of the content of the packet, packets with equal tokens must be encoded identically
+     * @param protocolVersion protocol version of the receiving player
+     * @return a retained duplicate of the encoded packet, or null if the packet could not be encoded
+     */
+    @Nullable
+    ByteBuf encode(@Nonnull DefinedPacket packet, @Nonnull HashCode token, int protocolVersion) {
+        try {
+            ByteBuf buf = cache.get(new Key(token, protocolVersion), () -> {
+                ByteBuf out = Unpooled.buffer();
+                boolean success = false;
+                try {
+                    encoders.computeIfAbsent(protocolVersion, Encoder::new).encode(packet, out);
+                    success = true;
+                } finally {
+                    if (!success) {
+                        out.release();
+                    }
+                }
+                return out;
+            });
+            return buf.retainedDuplicate();
+        } catch (ExecutionException | UncheckedExecutionException | IllegalReferenceCountException e) {
+            // the entry has been evicted concurrently or the packet is not supported
+            return null;
+        }
+    }
+
+    private static final class Encoder extends MinecraftEncoder {
+
+        private Encoder(int protocolVersion) {
+            super(Protocol.GAME, true, protocolVersion);
+        }
+
+        private void encode(DefinedPacket packet, ByteBuf out) throws Exception {
+            encode(null, packet, out);
+        }
+    }
+
+    private static final class Key {
+        private final HashCode token;
+        private final int protocolVersion;
+
+        private Key(HashCode token, int protocolVersion) {
+            this.token = token;
+            this.protocolVersion = protocolVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return protocolVersion == key.protocolVersion && token.equals(key.token);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * token.hashCode() + protocolVersion;
+        }
+    }
+}
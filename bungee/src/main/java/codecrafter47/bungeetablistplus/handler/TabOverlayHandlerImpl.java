@@ -18,10 +18,15 @@
 package codecrafter47.bungeetablistplus.handler;
 
 import codecrafter47.bungeetablistplus.BungeeTabListPlus;
+import codecrafter47.bungeetablistplus.util.ReflectionUtil;
 import de.codecrafter47.bungeetablistplus.bungee.compat.WaterfallCompat;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
+import net.md_5.bungee.netty.ChannelWrapper;
 import net.md_5.bungee.protocol.DefinedPacket;
 import net.md_5.bungee.protocol.ProtocolConstants;
+import net.md_5.bungee.protocol.packet.PlayerListItem;
 
 import java.util.UUID;
 import java.util.concurrent.Executor;
@@ -30,6 +35,12 @@ import java.util.logging.Logger;
 public class TabOverlayHandlerImpl extends AbstractTabOverlayHandler {
 
     private final ProxiedPlayer player;
+    private ChannelWrapper channelWrapper;
+    /**
+     * Only used on the event loop of the channel. Packets sent from other threads, e.g. by the pass-through handlers,
+     * are always flushed immediately.
+     */
+    private boolean flushDeferred = false;
 
     public TabOverlayHandlerImpl(Logger logger, Executor eventLoopExecutor, UUID viewerUuid, ProxiedPlayer player, boolean is18, boolean is13OrLater, boolean is119OrLater) {
         super(logger, eventLoopExecutor, viewerUuid, is18, is13OrLater, is119OrLater);
@@ -38,7 +49,75 @@ public class TabOverlayHandlerImpl extends AbstractTabOverlayHandler {
 
     @Override
     protected void sendPacket(DefinedPacket packet) {
-        player.unsafe().sendPacket(packet);
+        if (isFlushDeferred()) {
+            Channel channel = channelWrapper.getHandle();
+            channel.write(packet, channel.voidPromise());
+        } else {
+            player.unsafe().sendPacket(packet);
+        }
+    }
+
+    @Override
+    protected void sendSharedPacket(PlayerListItem packet) {
+        if (BungeeTabListPlus.getInstance().getConfig().experimentalSharedPacketEncoding) {
+            ChannelWrapper channelWrapper = getChannelWrapper();
+            // the protocol of the channel can only be checked reliably on its event loop
+            if (channelWrapper != null && !channelWrapper.isClosed()
+                    && channelWrapper.getHandle().eventLoop().inEventLoop()
+                    && SharedPacketEncoder.isGameProtocol(channelWrapper.getHandle())) {
+                ByteBuf buf = SharedPacketEncoder.INSTANCE.encode(packet, getContentToken(packet), player.getPendingConnection().getVersion());
+                if (buf != null) {
+                    Channel channel = channelWrapper.getHandle();
+                    if (flushDeferred) {
+                        channel.write(buf, channel.voidPromise());
+                    } else {
+                        channel.writeAndFlush(buf, channel.voidPromise());
+                    }
+                    return;
+                }
+            }
+        }
+        sendPacket(packet);
+    }
+
+    @Override
+    protected long getUpdateInterval() {
+        return BungeeTabListPlus.getInstance().getConfig().tabListUpdateInterval;
+    }
+
+    @Override
+    protected void onUpdateStart() {
+        // packets of batched updates are flushed once at the end of the update. They are written to the channel
+        // directly, bypassing BungeeCord, which is only safe while the channel uses the game protocol.
+        ChannelWrapper channelWrapper = getChannelWrapper();
+        flushDeferred = getUpdateInterval() > 0 && channelWrapper != null && !channelWrapper.isClosed()
+                && channelWrapper.getHandle().eventLoop().inEventLoop()
+                && SharedPacketEncoder.isGameProtocol(channelWrapper.getHandle());
+    }
+
+    private boolean isFlushDeferred() {
+        return flushDeferred && !channelWrapper.isClosed() && channelWrapper.getHandle().eventLoop().inEventLoop();
+    }
+
+    @Override
+    protected void onUpdateComplete() {
+        if (flushDeferred) {
+            flushDeferred = false;
+            if (!channelWrapper.isClosed()) {
+                channelWrapper.getHandle().flush();
+            }
+        }
+    }
+
+    private ChannelWrapper getChannelWrapper() {
+        if (channelWrapper == null) {
+            try {
+                channelWrapper = ReflectionUtil.getChannelWrapper(player);
+            } catch (NoSuchFieldException | IllegalAccessException ignored) {
+                // fall back to sending packets the regular way
+            }
+        }
+        return channelWrapper;
     }
 
     @Override
@@ -20,37 +20,69 @@ package codecrafter47.bungeetablistplus.managers;
 import codecrafter47.bungeetablistplus.bridge.BukkitBridge;
 import codecrafter47.bungeetablistplus.data.AbstractCompositeDataProvider;
 import codecrafter47.bungeetablistplus.data.BTLPBungeeDataKeys;
+import codecrafter47.bungeetablistplus.data.LuckPermsHook;
 import codecrafter47.bungeetablistplus.data.ServerDataHolder;
 import codecrafter47.bungeetablistplus.data.TrackingDataCache;
 import codecrafter47.bungeetablistplus.player.BungeePlayer;
 import codecrafter47.bungeetablistplus.util.IconUtil;
 import codecrafter47.bungeetablistplus.util.MatchingStringsCollection;
+import com.google.common.collect.ImmutableSet;
 import com.imaginarycode.minecraft.redisbungee.RedisBungee;
 import de.codecrafter47.data.api.*;
 import de.codecrafter47.data.bungee.AbstractBungeeDataAccess;
 import de.codecrafter47.data.bungee.PlayerDataAccess;
+import de.codecrafter47.data.bungee.api.BungeeData;
 import de.codecrafter47.taboverlay.config.misc.Unchecked;
-import de.codecrafter47.taboverlay.config.player.Player;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
 import lombok.Getter;
 import lombok.Setter;
 import net.md_5.bungee.BungeeCord;
 import net.md_5.bungee.UserConnection;
 import net.md_5.bungee.api.ProxyServer;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
+import net.md_5.bungee.api.event.ServerSwitchEvent;
 import net.md_5.bungee.api.plugin.Listener;
 import net.md_5.bungee.api.plugin.Plugin;
+import net.md_5.bungee.event.EventHandler;
 
 import javax.annotation.Nonnull;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class DataManager implements Listener {
 
+    /**
+     * Refresh interval of keys which are never polled. Their value is queried once when the key becomes active, after
+     * that changes are pushed by calling one of the refresh methods.
+     */
+    public static final int EVENT_DRIVEN = 0;
+
+    private static final int PLAYERS_PER_CHUNK = 32;
+
+    /**
+     * Maximum number of isolated queries running at the same time, not counting queries which exceeded the timeout.
+     */
+    private static final int ISOLATED_QUERY_LIMIT = 2;
+
+    /**
+     * Keys whose providers call into third-party code and may be slow. They are resolved on a separate executor.
+     */
+    private static final Set<String> ISOLATED_KEY_IDS = ImmutableSet.of(
+            BTLPBungeeDataKeys.ThirdPartyPlaceholderBungee.getId(),
+            BTLPBungeeDataKeys.ThirdPartyServerPlaceholderBungee.getId());
+
     private final API api;
+    private final Logger logger;
     private final EventExecutor mainThreadExecutor;
+    private final EventExecutorGroup queryExecutor;
+    private final Executor isolatedExecutor;
     private final BungeePlayerProvider bungeePlayerProvider;
     private final ServerStateManager serverStateManager;
     private final BukkitBridge bukkitBridge;
@@ -60,21 +92,52 @@ public class DataManager implements Listener {
     private final DataAccess<ProxyServer> proxyDataAccess;
     private final Map<String, AbstractCompositeDataProvider<?>> compositeDataProviders = new HashMap<>();
 
-    private final Map<String, TrackingDataCache> serverData = new ConcurrentHashMap<>();
+    private final Map<String, LocalServerDataCache> serverData = new ConcurrentHashMap<>();
     private final Map<String, DataHolder> combinedServerData = new ConcurrentHashMap<>();
 
     @Getter
     private final TrackingDataCache proxyData = new TrackingDataCache();
 
+    /**
+     * Refresh interval in seconds by data key id. Keys without an entry are polled every second.
+     */
+    private final Map<String, Integer> refreshIntervals = new ConcurrentHashMap<>();
+    // read by the chunks of a sweep and by data caches created on other threads
+    private final AtomicInteger tick = new AtomicInteger();
+
+    private final AtomicInteger runningChunks = new AtomicInteger();
+
+    // isolated queries which are queued or running, by holder and key, guarded by isolatedQueryLock
+    private final Object isolatedQueryLock = new Object();
+    private final Map<Object, IsolatedQuery> isolatedQueries = new HashMap<>();
+    private final Queue<IsolatedQuery> pendingIsolatedQueries = new ArrayDeque<>();
+    private int activeIsolatedQueries = 0;
+    private final Set<String> timedOutKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Time in milliseconds after which a sweep stops querying data. Keys not reached are queried by the next sweep.
+     */
     @Setter
-    MatchingStringsCollection hiddenServers = new MatchingStringsCollection(Collections.emptyList());
+    private volatile int updateTimeBudget = 500;
+
+    /**
+     * Time in milliseconds after which a slow provider is reported. From then on the query no longer counts against
+     * the limit of isolated queries, so other queries can start. No further updates for the same holder and key are
+     * started until it completes.
+     */
     @Setter
-    List<String> permanentlyHiddenPlayers = Collections.emptyList();
+    private volatile int isolatedUpdateTimeout = 1000;
+
+    private volatile MatchingStringsCollection hiddenServers = new MatchingStringsCollection(Collections.emptyList());
+    private volatile List<String> permanentlyHiddenPlayers = Collections.emptyList();
 
-    public DataManager(API api, Plugin plugin, Logger logger, BungeePlayerProvider bungeePlayerProvider, EventExecutor mainThreadExecutor, ServerStateManager serverStateManager, BukkitBridge bukkitBridge) {
+    public DataManager(API api, Plugin plugin, Logger logger, BungeePlayerProvider bungeePlayerProvider, EventExecutor mainThreadExecutor, EventExecutorGroup queryExecutor, Executor isolatedExecutor, ServerStateManager serverStateManager, BukkitBridge bukkitBridge) {
         this.api = api;
-        this.bungeePlayerProvider = bungeePlayerProvider;
+        this.logger = logger;
         this.mainThreadExecutor = mainThreadExecutor;
+        this.queryExecutor = queryExecutor;
+        this.isolatedExecutor = isolatedExecutor;
+        this.bungeePlayerProvider = bungeePlayerProvider;
         this.serverStateManager = serverStateManager;
         this.bukkitBridge = bukkitBridge;
         this.playerDataAccess = JoinedDataAccess.of(new PlayerDataAccess(plugin, logger),
@@ -82,9 +145,197 @@ public class DataManager implements Listener {
         this.serverDataAccess = new LocalServerDataAccess(plugin, logger);
         this.proxyDataAccess = new ProxyDataAccess(plugin, logger);
 
+        // constant for the lifetime of the player or server
+        setRefreshInterval(BTLPBungeeDataKeys.DATA_KEY_RedisBungee_ServerId, EVENT_DRIVEN);
+        setRefreshInterval(BTLPBungeeDataKeys.DATA_KEY_ServerName, EVENT_DRIVEN);
+        // refreshed by the setters
+        setRefreshInterval(BTLPBungeeDataKeys.DATA_KEY_IS_HIDDEN_PLAYER_CONFIG, EVENT_DRIVEN);
+        setRefreshInterval(BTLPBungeeDataKeys.DATA_KEY_IS_HIDDEN_SERVER_CONFIG, EVENT_DRIVEN);
+        // refreshed on ServerSwitchEvent
+        setRefreshInterval(BungeeData.BungeeCord_Server, EVENT_DRIVEN);
+        // BungeeCord does not fire an event when the ping changes, and it is only updated by keep alive packets anyway
+        setRefreshInterval(BungeeData.BungeeCord_Ping, 5);
+        setRefreshInterval(BTLPBungeeDataKeys.DATA_KEY_ICON, 5);
+        setRefreshInterval(BungeeData.PAFClans_ClanName, 10);
+        setRefreshInterval(BungeeData.PAFClans_ClanTag, 10);
+        setRefreshInterval(BungeeData.PAFClans_IsLeader, 10);
+        setRefreshInterval(BungeeData.PAFClans_MemberCount, 10);
+        setRefreshInterval(BungeeData.PAFClans_OnlineMemberCount, 10);
+        setRefreshInterval(BTLPBungeeDataKeys.DATA_KEY_Server_Count, 10);
+
+        if (ProxyServer.getInstance().getPluginManager().getPlugin("LuckPerms") != null) {
+            try {
+                new LuckPermsHook(plugin, this, bungeePlayerProvider).register();
+            } catch (Throwable th) {
+                logger.log(Level.WARNING, "Failed to hook into LuckPerms, LuckPerms data will be polled instead.", th);
+            }
+        }
+
+        ProxyServer.getInstance().getPluginManager().registerListener(plugin, this);
         ProxyServer.getInstance().getScheduler().schedule(plugin, this::updateData, 1, 1, TimeUnit.SECONDS);
     }
 
+    /**
+     * Sets how often the values of the given key are polled.
+     *
+     * @param key     the data key, applies to all keys with the same id regardless of their parameter
+     * @param seconds the refresh interval in seconds, or {@link #EVENT_DRIVEN} if changes are pushed using one of the
+     *                refresh methods
+     */
+    public void setRefreshInterval(@Nonnull DataKey<?> key, int seconds) {
+        if (seconds < 0) {
+            throw new IllegalArgumentException("seconds must not be negative");
+        }
+        refreshIntervals.put(key.getId(), seconds);
+    }
+
+    public void setHiddenServers(@Nonnull MatchingStringsCollection hiddenServers) {
+        this.hiddenServers = hiddenServers;
+        for (String serverName : serverData.keySet()) {
+            refreshServerData(serverName, Collections.singleton(BTLPBungeeDataKeys.DATA_KEY_IS_HIDDEN_SERVER_CONFIG.getId()));
+        }
+    }
+
+    public void setPermanentlyHiddenPlayers(@Nonnull List<String> permanentlyHiddenPlayers) {
+        this.permanentlyHiddenPlayers = permanentlyHiddenPlayers;
+        for (BungeePlayer player : bungeePlayerProvider.getPlayers()) {
+            refreshPlayerData(player, Collections.singleton(BTLPBungeeDataKeys.DATA_KEY_IS_HIDDEN_PLAYER_CONFIG.getId()));
+        }
+    }
+
+    @EventHandler
+    public void onServerSwitch(ServerSwitchEvent event) {
+        BungeePlayer player = bungeePlayerProvider.getPlayerIfPresent(event.getPlayer());
+        if (player != null) {
+            refreshPlayerData(player, Collections.singleton(BungeeData.BungeeCord_Server.getId()));
+        }
+    }
+
+    /**
+     * Queries the active keys of a player whose id is contained in {@code keyIds} and updates the cached values.
+     */
+    public void refreshPlayerData(@Nonnull BungeePlayer player, @Nonnull Set<String> keyIds) {
+        LocalDataCache dataCache = player.getLocalDataCache();
+        for (DataKey<?> dataKey : dataCache.getActiveKeys()) {
+            if (keyIds.contains(dataKey.getId())) {
+                refreshPlayerData(player, dataKey);
+            }
+        }
+    }
+
+    private void refreshPlayerData(BungeePlayer player, DataKey<?> dataKey) {
+        if (playerDataAccess.provides(dataKey)) {
+            DataKey<Object> key = Unchecked.cast(dataKey);
+            if (ISOLATED_KEY_IDS.contains(key.getId())) {
+                updateIsolated(player.getUniqueID(), player.getLocalDataCache(), key, () -> playerDataAccess.get(key, player.getPlayer()));
+            } else {
+                updateIfNecessary(player.getLocalDataCache(), key, playerDataAccess.get(key, player.getPlayer()));
+            }
+        }
+    }
+
+    /**
+     * Queries the active keys of a server whose id is contained in {@code keyIds} and updates the cached values.
+     */
+    public void refreshServerData(@Nonnull String serverName, @Nonnull Set<String> keyIds) {
+        TrackingDataCache dataCache = serverData.get(serverName);
+        if (dataCache == null) {
+            return;
+        }
+        for (DataKey<?> dataKey : dataCache.getActiveKeys()) {
+            if (keyIds.contains(dataKey.getId())) {
+                refreshServerData(serverName, dataCache, dataKey);
+            }
+        }
+    }
+
+    private void refreshServerData(String serverName, TrackingDataCache dataCache, DataKey<?> dataKey) {
+        DataKey<Object> key = Unchecked.cast(dataKey);
+        if (ISOLATED_KEY_IDS.contains(key.getId())) {
+            updateIsolated(serverName, dataCache, key, () -> serverDataAccess.get(key, serverName));
+        } else {
+            updateIfNecessary(dataCache, key, serverDataAccess.get(key, serverName));
+        }
+    }
+
+    /**
+     * Queries a slow provider on the isolated executor. At most one query per holder and key is queued or running at a
+     * time, so a provider that hangs can't pile up tasks. The executor must not limit the number of threads, as
+     * queries exceeding the timeout are left running on their thread, see {@link #abandonTimedOutQueries()}.
+     */
+    private <T> void updateIsolated(Object holder, DataCache dataCache, DataKey<T> key, Supplier<T> provider) {
+        Object id = new AbstractMap.SimpleImmutableEntry<>(holder, key);
+        synchronized (isolatedQueryLock) {
+            if (isolatedQueries.containsKey(id)) {
+                return;
+            }
+            IsolatedQuery query = new IsolatedQuery(id, key, () -> updateIfNecessary(dataCache, key, provider.get()));
+            isolatedQueries.put(id, query);
+            pendingIsolatedQueries.add(query);
+            startIsolatedQueries();
+        }
+    }
+
+    /**
+     * Starts queued isolated queries until the limit is reached. Must hold isolatedQueryLock.
+     */
+    private void startIsolatedQueries() {
+        IsolatedQuery query;
+        while (activeIsolatedQueries < ISOLATED_QUERY_LIMIT && (query = pendingIsolatedQueries.poll()) != null) {
+            activeIsolatedQueries++;
+            query.started = System.nanoTime();
+            try {
+                isolatedExecutor.execute(query);
+            } catch (RuntimeException ex) {
+                activeIsolatedQueries--;
+                isolatedQueries.remove(query.id);
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Stops waiting for isolated queries which exceeded the timeout. They keep running, but no longer count against
+     * the limit, so a provider that hangs doesn't delay the queries of other providers.
+     */
+    private void abandonTimedOutQueries() {
+        long now = System.nanoTime();
+        long timeout = TimeUnit.MILLISECONDS.toNanos(isolatedUpdateTimeout);
+        synchronized (isolatedQueryLock) {
+            for (IsolatedQuery query : isolatedQueries.values()) {
+                if (query.started != 0 && !query.abandoned && now - query.started > timeout) {
+                    query.abandoned = true;
+                    activeIsolatedQueries--;
+                    if (timedOutKeys.add(query.key.toString())) {
+                        logger.warning("Resolving " + query.key + " took longer than " + isolatedUpdateTimeout + "ms. Updates for it are delayed until it completes.");
+                    }
+                }
+            }
+            startIsolatedQueries();
+        }
+    }
+
+    private boolean isEventDriven(DataKey<?> key) {
+        Integer interval = refreshIntervals.get(key.getId());
+        return interval != null && interval == EVENT_DRIVEN;
+    }
+
+    /**
+     * Check whether a key needs to be refreshed in this tick.
+     *
+     * @param lastTick the last tick in which the data holder has been refreshed, may be more than one tick ago if the
+     *                 holder has been skipped because the time budget was exceeded
+     * @param offset   spreads the refreshes of different players and servers over the interval
+     */
+    private boolean isRefreshDue(DataKey<?> key, int tick, int lastTick, int offset) {
+        Integer interval = refreshIntervals.get(key.getId());
+        if (interval == null) {
+            return true;
+        }
+        // due if the interval has elapsed between the last refresh and now
+        return interval != EVENT_DRIVEN && Math.floorDiv(tick + offset, interval) != Math.floorDiv(lastTick + offset, interval);
+    }
+
     public LocalDataCache createDataCacheForPlayer(BungeePlayer player) {
         return new LocalDataCache(player);
     }
@@ -102,37 +353,87 @@ public class DataManager implements Listener {
 
     private DataHolder getLocalServerDataHolder(@Nonnull String serverName) {
         if (!serverData.containsKey(serverName)) {
-            serverData.putIfAbsent(serverName, new TrackingDataCache());
+            serverData.putIfAbsent(serverName, new LocalServerDataCache(serverName));
         }
         return serverData.get(serverName);
     }
 
     private void updateData() {
-        for (BungeePlayer player : bungeePlayerProvider.getPlayers()) {
-            for (DataKey<?> dataKey : player.getLocalDataCache().getActiveKeys()) {
-                if (playerDataAccess.provides(dataKey)) {
-                    DataKey<Object> key = Unchecked.cast(dataKey);
-                    updateIfNecessary(player.getLocalDataCache(), key, playerDataAccess.get(key, player.getPlayer()));
+        abandonTimedOutQueries();
+
+        if (runningChunks.get() != 0) {
+            // the previous sweep has not completed yet
+            return;
+        }
+        int tick = this.tick.getAndIncrement();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(updateTimeBudget);
+
+        List<BungeePlayer> players = new ArrayList<>(bungeePlayerProvider.getPlayers());
+        if (!players.isEmpty()) {
+            // rotate the start so players at the end aren't always the ones skipped when the time budget is exceeded
+            Collections.rotate(players, -(int) (((long) tick * PLAYERS_PER_CHUNK) % players.size()));
+        }
+        for (int i = 0; i < players.size(); i += PLAYERS_PER_CHUNK) {
+            List<BungeePlayer> chunk = players.subList(i, Math.min(i + PLAYERS_PER_CHUNK, players.size()));
+            submitChunk(() -> updatePlayerData(chunk, tick, deadline));
+        }
+        submitChunk(() -> updateServerAndProxyData(tick, deadline));
+    }
+
+    private void submitChunk(Runnable chunk) {
+        runningChunks.incrementAndGet();
+        queryExecutor.execute(() -> {
+            try {
+                chunk.run();
+            } finally {
+                runningChunks.decrementAndGet();
+            }
+        });
+    }
+
+    private void updatePlayerData(List<BungeePlayer> players, int tick, long deadline) {
+        for (BungeePlayer player : players) {
+            if (System.nanoTime() - deadline > 0) {
+                return;
+            }
+            LocalDataCache dataCache = player.getLocalDataCache();
+            int offset = player.getUniqueID().hashCode();
+            for (DataKey<?> dataKey : dataCache.getActiveKeys()) {
+                if (isRefreshDue(dataKey, tick, dataCache.lastRefreshTick, offset)) {
+                    refreshPlayerData(player, dataKey);
                 }
             }
+            dataCache.lastRefreshTick = tick;
         }
-        for (Map.Entry<String, TrackingDataCache> entry : serverData.entrySet()) {
+    }
+
+    private void updateServerAndProxyData(int tick, long deadline) {
+        for (Map.Entry<String, LocalServerDataCache> entry : serverData.entrySet()) {
+            if (System.nanoTime() - deadline > 0) {
+                return;
+            }
             String serverName = entry.getKey();
-            TrackingDataCache dataCache = entry.getValue();
+            LocalServerDataCache dataCache = entry.getValue();
+            int offset = serverName.hashCode();
             for (DataKey<?> dataKey : dataCache.getActiveKeys()) {
-                DataKey<Object> key = Unchecked.cast(dataKey);
-                updateIfNecessary(dataCache, key, serverDataAccess.get(key, serverName));
+                if (isRefreshDue(dataKey, tick, dataCache.lastRefreshTick, offset)) {
+                    refreshServerData(serverName, dataCache, dataKey);
+                }
             }
+            dataCache.lastRefreshTick = tick;
         }
+        // proxy data is never skipped
         for (DataKey<?> dataKey : proxyData.getActiveKeys()) {
-            DataKey<Object> key = Unchecked.cast(dataKey);
-            updateIfNecessary(proxyData, key, proxyDataAccess.get(key, BungeeCord.getInstance()));
+            if (isRefreshDue(dataKey, tick, tick - 1, 0)) {
+                DataKey<Object> key = Unchecked.cast(dataKey);
+                updateIfNecessary(proxyData, key, proxyDataAccess.get(key, BungeeCord.getInstance()));
+            }
         }
-
     }
 
     private <T> void updateIfNecessary(DataCache data, DataKey<T> key, T value) {
         if (!Objects.equals(data.get(key), value)) {
+            // listeners of the data cache expect to be called on the main thread
             mainThreadExecutor.execute(() -> data.updateValue(key, value));
         }
     }
@@ -173,11 +474,63 @@ public class DataManager implements Listener {
         }
     }
 
+    private class IsolatedQuery implements Runnable {
+
+        private final Object id;
+        private final DataKey<?> key;
+        private final Runnable task;
+        // guarded by isolatedQueryLock
+        private long started = 0;
+        private boolean abandoned = false;
+
+        private IsolatedQuery(Object id, DataKey<?> key, Runnable task) {
+            this.id = id;
+            this.key = key;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } finally {
+                synchronized (isolatedQueryLock) {
+                    isolatedQueries.remove(id);
+                    if (!abandoned) {
+                        activeIsolatedQueries--;
+                    }
+                    startIsolatedQueries();
+                }
+            }
+        }
+    }
+
+    private class LocalServerDataCache extends TrackingDataCache {
+
+        private final String serverName;
+        // chunks of later sweeps may run on other threads
+        private volatile int lastRefreshTick = tick.get() - 1;
+
+        private LocalServerDataCache(String serverName) {
+            this.serverName = serverName;
+        }
+
+        @Override
+        protected <T> void addActiveKey(DataKey<T> key) {
+            super.addActiveKey(key);
+            if (isEventDriven(key)) {
+                queryExecutor.execute(() -> refreshServerData(serverName, this, key));
+            }
+        }
+    }
+
     public class LocalDataCache extends TrackingDataCache {
 
-        private final Player player;
+        private final BungeePlayer player;
+        // chunks of later sweeps may run on other threads
+        private volatile int lastRefreshTick = tick.get() - 1;
 
-        private LocalDataCache(Player player) {
+        private LocalDataCache(BungeePlayer player) {
             this.player = player;
         }
 
@@ -188,6 +541,9 @@ public class DataManager implements Listener {
                 compositeDataProvider.onPlayerAdded(player, Unchecked.cast(key));
             } else {
                 super.addActiveKey(key);
+                if (isEventDriven(key)) {
+                    queryExecutor.execute(() -> refreshPlayerData(player, key));
+                }
             }
         }
 
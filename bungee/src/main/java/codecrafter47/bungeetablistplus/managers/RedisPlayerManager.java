@@ -20,6 +20,9 @@ package codecrafter47.bungeetablistplus.managers;
 import codecrafter47.bungeetablistplus.BungeeTabListPlus;
 import codecrafter47.bungeetablistplus.common.BTLPDataKeys;
 import codecrafter47.bungeetablistplus.common.network.DataStreamUtils;
+import codecrafter47.bungeetablistplus.common.network.MessageReader;
+import codecrafter47.bungeetablistplus.common.network.MessageWriter;
+import codecrafter47.bungeetablistplus.common.network.StringDictionary;
 import codecrafter47.bungeetablistplus.common.network.TypeAdapterRegistry;
 import codecrafter47.bungeetablistplus.data.BTLPBungeeDataKeys;
 import codecrafter47.bungeetablistplus.data.BTLPDataTypes;
@@ -30,6 +33,8 @@ import com.google.common.io.ByteArrayDataInput;
 import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
 import com.imaginarycode.minecraft.redisbungee.RedisBungee;
+import com.imaginarycode.minecraft.redisbungee.events.PlayerJoinedNetworkEvent;
+import com.imaginarycode.minecraft.redisbungee.events.PlayerLeftNetworkEvent;
 import com.imaginarycode.minecraft.redisbungee.events.PubSubMessageEvent;
 import de.codecrafter47.data.api.DataCache;
 import de.codecrafter47.data.api.DataKey;
@@ -45,13 +50,18 @@ import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import net.md_5.bungee.api.ProxyServer;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
+import net.md_5.bungee.api.event.PlayerDisconnectEvent;
 import net.md_5.bungee.api.plugin.Listener;
 import net.md_5.bungee.event.EventHandler;
 
+import java.io.DataInput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -74,6 +84,14 @@ public class RedisPlayerManager implements Listener, PlayerProvider {
     private static String CHANNEL_DATA_OLD = "btlp-data";
     private static String CHANNEL_DATA_REQUEST = "btlp-data-req";
     private static String CHANNEL_DATA_UPDATE = "btlp-data-upd";
+    private static String CHANNEL_DATA_REQUEST_BATCH = "btlp-data-req-batch";
+    private static String CHANNEL_DATA_UPDATE_BATCH = "btlp-data-upd-batch";
+
+    private static final int BATCH_FLUSH_INTERVAL = 50;
+    private static final int MAX_BATCH_SIZE = 512;
+
+    // players are tracked using join and leave events, the full player list is only used to correct missed events
+    private static final int CONSISTENCY_CHECK_INTERVAL = 60;
 
     private final Map<UUID, RedisPlayer> byUUID = new ConcurrentHashMap<>();
     private final BungeePlayerProvider bungeePlayerProvider;
@@ -84,6 +102,28 @@ public class RedisPlayerManager implements Listener, PlayerProvider {
 
     private boolean redisBungeeAPIError = false;
 
+    // set once a message of a proxy running the previous version has been received, from then on requests and updates
+    // are also published on the channels used by that version, so rolling upgrades don't lose data
+    private final AtomicBoolean legacyProxyPresent = new AtomicBoolean(false);
+
+    // requests and updates not yet published, grouped by player, guarded by their own monitor
+    private final Map<UUID, Set<DataKey<?>>> pendingRequests = new LinkedHashMap<>();
+    private int pendingRequestCount = 0;
+    private final Map<UUID, Map<DataKey<?>, Object>> pendingUpdates = new LinkedHashMap<>();
+    private int pendingUpdateCount = 0;
+
+    // keys of local players requested by other proxies, each key has a single change listener shared by all proxies
+    private final Map<UUID, Set<DataKey<?>>> subscriptions = new ConcurrentHashMap<>();
+
+    // players which joined the network and whose name has not been looked up yet
+    private final Set<UUID> pendingJoins = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean joinLookupScheduled = new AtomicBoolean(false);
+
+    // latest join or leave event of each player since the last consistency check, used to discard results of name
+    // lookups and consistency checks which are older than the event
+    private final Map<UUID, NetworkEvent> networkEvents = new ConcurrentHashMap<>();
+    private final AtomicLong networkEventSequence = new AtomicLong(0);
+
     private final Consumer<String> missingDataKeyLogger = new Consumer<String>() {
 
         private final Set<String> missingKeys = Sets.newConcurrentHashSet();
@@ -106,8 +146,10 @@ public class RedisPlayerManager implements Listener, PlayerProvider {
 
         RedisBungee.getApi().registerPubSubChannels(CHANNEL_REQUEST_DATA_OLD, CHANNEL_DATA_OLD);
         RedisBungee.getApi().registerPubSubChannels(CHANNEL_DATA_REQUEST, CHANNEL_DATA_UPDATE);
+        RedisBungee.getApi().registerPubSubChannels(CHANNEL_DATA_REQUEST_BATCH, CHANNEL_DATA_UPDATE_BATCH);
 
-        ProxyServer.getInstance().getScheduler().schedule(BungeeTabListPlus.getInstance().getPlugin(), this::updatePlayers, 5, 5, TimeUnit.SECONDS);
+        ProxyServer.getInstance().getScheduler().schedule(BungeeTabListPlus.getInstance().getPlugin(), this::updatePlayers, 5, CONSISTENCY_CHECK_INTERVAL, TimeUnit.SECONDS);
+        ProxyServer.getInstance().getScheduler().schedule(BungeeTabListPlus.getInstance().getPlugin(), this::flush, BATCH_FLUSH_INTERVAL, BATCH_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
 
         ProxyServer.getInstance().getPluginManager().registerListener(BungeeTabListPlus.getInstance().getPlugin(), this);
     }
@@ -118,62 +160,208 @@ public class RedisPlayerManager implements Listener, PlayerProvider {
     }
 
     @EventHandler
-    @SuppressWarnings("unchecked")
     public void onRedisMessage(PubSubMessageEvent event) {
         String channel = event.getChannel();
-        if (channel.equals(CHANNEL_DATA_REQUEST)) {
-            ByteArrayDataInput input = ByteStreams.newDataInput(Base64.getDecoder().decode(event.getMessage()));
+        if (channel.equals(CHANNEL_DATA_REQUEST_BATCH)) {
+            DataInput input = MessageReader.of(ByteBuffer.wrap(Base64.getDecoder().decode(event.getMessage())));
             try {
-                UUID uuid = DataStreamUtils.readUUID(input);
-
-                ProxiedPlayer proxiedPlayer = ProxyServer.getInstance().getPlayer(uuid);
-                if (proxiedPlayer != null) {
-                    BungeePlayer player = bungeePlayerProvider.getPlayerIfPresent(proxiedPlayer);
-                    if (player != null) {
-                        DataKey<?> key = DataStreamUtils.readDataKey(input, keyRegistry, missingDataKeyLogger);
-
+                StringDictionary dictionary = new StringDictionary();
+                int players = DataStreamUtils.readVarInt(input);
+                for (int i = 0; i < players; i++) {
+                    UUID uuid = DataStreamUtils.readUUID(input);
+                    int size = DataStreamUtils.readVarInt(input);
+                    List<DataKey<?>> keys = new ArrayList<>(size);
+                    for (int j = 0; j < size; j++) {
+                        DataKey<?> key = DataStreamUtils.readDataKey(input, dictionary, keyRegistry, missingDataKeyLogger);
                         if (key != null) {
-                            player.addDataChangeListener((DataKey<Object>) key, new DataChangeListener(player, (DataKey<Object>) key));
-                            updateData(uuid, (DataKey<Object>) key, player.get(key));
+                            keys.add(key);
                         }
-
                     }
+                    onDataRequested(uuid, keys);
+                }
+            } catch (IOException ex) {
+                logger.log(Level.SEVERE, "Unexpected error reading redis message", ex);
+            }
+        } else if (channel.equals(CHANNEL_DATA_UPDATE_BATCH)) {
+            DataInput input = MessageReader.of(ByteBuffer.wrap(Base64.getDecoder().decode(event.getMessage())));
+            try {
+                StringDictionary dictionary = new StringDictionary();
+                int players = DataStreamUtils.readVarInt(input);
+                for (int i = 0; i < players; i++) {
+                    UUID uuid = DataStreamUtils.readUUID(input);
+                    int size = DataStreamUtils.readVarInt(input);
+                    Object[] update = new Object[size * 2];
+                    int length = 0;
+                    for (int j = 0; j < size; j++) {
+                        DataKey<?> key = DataStreamUtils.readDataKey(input, dictionary, keyRegistry, missingDataKeyLogger);
+                        Object value = null;
+                        if (!input.readBoolean()) {
+                            // values are prefixed with their length, so keys unknown to this proxy can be skipped
+                            int valueLength = DataStreamUtils.readVarInt(input);
+                            if (key != null) {
+                                value = typeRegistry.getTypeAdapter(key.getType()).read(input);
+                            } else {
+                                input.skipBytes(valueLength);
+                            }
+                        }
+                        if (key != null) {
+                            update[length++] = key;
+                            update[length++] = value;
+                        }
+                    }
+                    onDataUpdated(uuid, update, length);
+                }
+            } catch (IOException ex) {
+                logger.log(Level.SEVERE, "Unexpected error reading redis message", ex);
+            }
+        } else if (channel.equals(CHANNEL_DATA_REQUEST)) {
+            onLegacyProxyMessage();
+            ByteArrayDataInput input = ByteStreams.newDataInput(Base64.getDecoder().decode(event.getMessage()));
+            try {
+                UUID uuid = DataStreamUtils.readUUID(input);
+                DataKey<?> key = DataStreamUtils.readDataKey(input, keyRegistry, missingDataKeyLogger);
+
+                if (key != null) {
+                    onDataRequested(uuid, Collections.singletonList(key));
                 }
             } catch (IOException ex) {
                 logger.log(Level.SEVERE, "Unexpected error reading redis message", ex);
             }
         } else if (channel.equals(CHANNEL_DATA_UPDATE)) {
+            onLegacyProxyMessage();
             ByteArrayDataInput input = ByteStreams.newDataInput(Base64.getDecoder().decode(event.getMessage()));
             try {
                 UUID uuid = DataStreamUtils.readUUID(input);
+                DataKey<?> key = DataStreamUtils.readDataKey(input, keyRegistry, missingDataKeyLogger);
+
+                if (key != null) {
+                    boolean removed = input.readBoolean();
+                    Object value = removed ? null : typeRegistry.getTypeAdapter(key.getType()).read(input);
+                    onDataUpdated(uuid, new Object[]{key, value}, 2);
+                }
+            } catch (IOException ex) {
+                logger.log(Level.SEVERE, "Unexpected error reading redis message", ex);
+            }
+        } else if (channel.equals(CHANNEL_DATA_OLD) || channel.equals(CHANNEL_REQUEST_DATA_OLD)) {
+            logger.warning("BungeeTabListPlus on at least one proxy in your network is outdated.");
+        }
+    }
 
-                RedisPlayer player = byUUID.get(uuid);
-                if (player != null) {
-                    DataCache cache = player.getData();
-                    DataKey<?> key = DataStreamUtils.readDataKey(input, keyRegistry, missingDataKeyLogger);
+    private void onLegacyProxyMessage() {
+        if (legacyProxyPresent.compareAndSet(false, true)) {
+            logger.warning("BungeeTabListPlus on at least one proxy in your network is outdated.");
+            // requests published before have not been received by the outdated proxy
+            for (RedisPlayer player : byUUID.values()) {
+                for (DataKey<?> key : player.getData().getActiveKeys()) {
+                    request(player.getUniqueID(), key);
+                }
+            }
+        }
+    }
 
-                    if (key != null) {
-                        boolean removed = input.readBoolean();
+    /**
+     * Subscribes other proxies to the given data keys of a local player. The current values are sent in any case, as
+     * the requesting proxy may not have received them yet.
+     */
+    @SuppressWarnings("unchecked")
+    private void onDataRequested(UUID uuid, List<DataKey<?>> keys) {
+        ProxiedPlayer proxiedPlayer = ProxyServer.getInstance().getPlayer(uuid);
+        if (proxiedPlayer != null) {
+            BungeePlayer player = bungeePlayerProvider.getPlayerIfPresent(proxiedPlayer);
+            if (player != null) {
+                Set<DataKey<?>> subscribed = subscriptions.computeIfAbsent(uuid, key -> ConcurrentHashMap.newKeySet());
+                for (DataKey<?> key : keys) {
+                    if (subscribed.add(key)) {
+                        player.addDataChangeListener((DataKey<Object>) key, new DataChangeListener(player, (DataKey<Object>) key));
+                    }
+                    updateData(uuid, (DataKey<Object>) key, player.get(key));
+                }
+            }
+        }
+    }
 
-                        if (removed) {
+    @SuppressWarnings("unchecked")
+    private void onDataUpdated(UUID uuid, Object[] update, int length) {
+        RedisPlayer player = byUUID.get(uuid);
+        if (player != null && length > 0) {
+            DataCache cache = player.getData();
+            mainThread.execute(() -> {
+                for (int i = 0; i < length; i += 2) {
+                    cache.updateValue((DataKey<Object>) update[i], update[i + 1]);
+                }
+            });
+        }
+    }
 
-                            mainThread.execute(() -> cache.updateValue(key, null));
-                        } else {
+    @EventHandler
+    public void onPlayerDisconnect(PlayerDisconnectEvent event) {
+        // change listeners are registered on the player object, they need to be registered again on reconnect
+        subscriptions.remove(event.getPlayer().getUniqueId());
+    }
 
-                            Object value = typeRegistry.getTypeAdapter(key.getType()).read(input);
-                            mainThread.execute(() -> cache.updateValue((DataKey<Object>) key, value));
-                        }
+    @EventHandler
+    public void onPlayerJoinedNetwork(PlayerJoinedNetworkEvent event) {
+        networkEvents.put(event.getUuid(), new NetworkEvent(networkEventSequence.incrementAndGet(), true));
+        pendingJoins.add(event.getUuid());
+        if (joinLookupScheduled.compareAndSet(false, true)) {
+            plugin.getAsyncExecutor().execute(this::processJoins);
+        }
+    }
+
+    @EventHandler
+    public void onPlayerLeftNetwork(PlayerLeftNetworkEvent event) {
+        UUID uuid = event.getUuid();
+        networkEvents.put(uuid, new NetworkEvent(networkEventSequence.incrementAndGet(), false));
+        pendingJoins.remove(uuid);
+        mainThread.execute(() -> removePlayer(uuid));
+    }
+
+    /**
+     * Looks up the names of all players which joined since the last invocation and adds them on the main thread.
+     * Joins arriving in a burst, e.g. after a proxy restart, are processed by a single invocation, but their names
+     * are still looked up one at a time.
+     */
+    private void processJoins() {
+        joinLookupScheduled.set(false);
+        List<UUID> joins = new ArrayList<>(pendingJoins);
+        pendingJoins.removeAll(joins);
+
+        Map<UUID, String> uuidToNameMap = new Object2ObjectOpenHashMap<>();
+        for (UUID uuid : joins) {
+            if (!byUUID.containsKey(uuid) && ProxyServer.getInstance().getPlayer(uuid) == null) {
+                try {
+                    // one Redis request per player unless RedisBungee has the name in its local cache. The API has no
+                    // bulk lookup, so a burst of joins is looked up one by one on this thread.
+                    // A missing name is picked up by the consistency check.
+                    String name = RedisBungee.getApi().getNameFromUuid(uuid, false);
+                    if (name != null) {
+                        uuidToNameMap.put(uuid, name);
                     }
+                } catch (Throwable ex) {
+                    logger.log(Level.WARNING, "Error while using RedisBungee API", ex);
                 }
-            } catch (IOException ex) {
-                logger.log(Level.SEVERE, "Unexpected error reading redis message", ex);
             }
-        } else if (channel.equals(CHANNEL_DATA_OLD) || channel.equals(CHANNEL_REQUEST_DATA_OLD)) {
-            logger.warning("BungeeTabListPlus on at least one proxy in your network is outdated.");
+        }
+
+        if (!uuidToNameMap.isEmpty()) {
+            mainThread.execute(() -> {
+                // skip players which left while their name was looked up
+                uuidToNameMap.keySet().removeIf(uuid -> {
+                    NetworkEvent networkEvent = networkEvents.get(uuid);
+                    return networkEvent == null || !networkEvent.joined;
+                });
+                addPlayers(uuidToNameMap);
+            });
         }
     }
 
+    /**
+     * Reconciles the tracked players with the full set of online players. Runs rarely, as a consistency check in case
+     * join or leave events have been missed.
+     */
     private void updatePlayers() {
+        // join and leave events after this are newer than the player list
+        long snapshot = networkEventSequence.get();
         Set<UUID> playersOnline;
         try {
             playersOnline = RedisBungee.getApi().getPlayersOnline();
@@ -200,28 +388,43 @@ public class RedisPlayerManager implements Listener, PlayerProvider {
 
         redisConnectionSuccessful = true;
 
-        try {
-            mainThread.submit(() -> {
-                // remove players which have gone offline
-                for (Iterator<UUID> iterator = byUUID.keySet().iterator(); iterator.hasNext(); ) {
-                    UUID uuid = iterator.next();
-                    if (!playersOnline.contains(uuid) || ProxyServer.getInstance().getPlayer(uuid) != null) {
-                        RedisPlayer redisPlayer = byUUID.get(uuid);
-                        iterator.remove();
-                        listeners.forEach(listener -> listener.onPlayerRemoved(redisPlayer));
-                    }
+        mainThread.execute(() -> {
+            // remove players which have gone offline
+            for (UUID uuid : new ArrayList<>(byUUID.keySet())) {
+                if (!isChangedSince(uuid, snapshot)
+                        && (!playersOnline.contains(uuid) || ProxyServer.getInstance().getPlayer(uuid) != null)) {
+                    removePlayer(uuid);
                 }
+            }
 
-                // add new players
-                for (UUID uuid : uuidToNameMap.keySet()) {
-                    if (!byUUID.containsKey(uuid) && ProxyServer.getInstance().getPlayer(uuid) == null) {
-                        RedisPlayer redisPlayer = new RedisPlayer(uuid, uuidToNameMap.get(uuid));
-                        byUUID.put(uuid, redisPlayer);
-                        listeners.forEach(listener -> listener.onPlayerAdded(redisPlayer));
-                    }
-                }
-            }).sync();
-        } catch (InterruptedException ignored) {
+            uuidToNameMap.keySet().removeIf(uuid -> isChangedSince(uuid, snapshot));
+            addPlayers(uuidToNameMap);
+
+            // older events are reflected in the player list
+            networkEvents.values().removeIf(networkEvent -> networkEvent.sequence <= snapshot);
+        });
+    }
+
+    private boolean isChangedSince(UUID uuid, long sequence) {
+        NetworkEvent networkEvent = networkEvents.get(uuid);
+        return networkEvent != null && networkEvent.sequence > sequence;
+    }
+
+    private void addPlayers(Map<UUID, String> uuidToNameMap) {
+        for (Map.Entry<UUID, String> entry : uuidToNameMap.entrySet()) {
+            UUID uuid = entry.getKey();
+            if (!byUUID.containsKey(uuid) && ProxyServer.getInstance().getPlayer(uuid) == null) {
+                RedisPlayer redisPlayer = new RedisPlayer(uuid, entry.getValue());
+                byUUID.put(uuid, redisPlayer);
+                listeners.forEach(listener -> listener.onPlayerAdded(redisPlayer));
+            }
+        }
+    }
+
+    private void removePlayer(UUID uuid) {
+        RedisPlayer redisPlayer = byUUID.remove(uuid);
+        if (redisPlayer != null) {
+            listeners.forEach(listener -> listener.onPlayerRemoved(redisPlayer));
         }
     }
 
@@ -236,11 +439,84 @@ public class RedisPlayerManager implements Listener, PlayerProvider {
     }
 
     public <T> void request(UUID uuid, DataKey<T> key) {
+        boolean full;
+        synchronized (pendingRequests) {
+            if (pendingRequests.computeIfAbsent(uuid, k -> new LinkedHashSet<>()).add(key)) {
+                pendingRequestCount++;
+            }
+            full = pendingRequestCount >= MAX_BATCH_SIZE;
+        }
+        if (full) {
+            plugin.getAsyncExecutor().execute(this::flushRequests);
+        }
+    }
+
+    private <T> void updateData(UUID uuid, DataKey<T> key, T value) {
+        boolean full;
+        synchronized (pendingUpdates) {
+            Map<DataKey<?>, Object> updates = pendingUpdates.computeIfAbsent(uuid, k -> new LinkedHashMap<>());
+            // a later update of the same key replaces the pending value
+            boolean replaced = updates.containsKey(key);
+            updates.put(key, value);
+            if (!replaced) {
+                pendingUpdateCount++;
+            }
+            full = pendingUpdateCount >= MAX_BATCH_SIZE;
+        }
+        if (full) {
+            plugin.getAsyncExecutor().execute(this::flushUpdates);
+        }
+    }
+
+    private void flush() {
+        flushRequests();
+        flushUpdates();
+    }
+
+    private void flushRequests() {
+        Map<UUID, Set<DataKey<?>>> requests;
+        synchronized (pendingRequests) {
+            if (pendingRequests.isEmpty()) {
+                return;
+            }
+            requests = new LinkedHashMap<>(pendingRequests);
+            pendingRequests.clear();
+            pendingRequestCount = 0;
+        }
         try {
-            ByteArrayDataOutput data = ByteStreams.newDataOutput();
-            DataStreamUtils.writeUUID(data, uuid);
-            DataStreamUtils.writeDataKey(data, key);
-            RedisBungee.getApi().sendChannelMessage(CHANNEL_DATA_REQUEST, Base64.getEncoder().encodeToString(data.toByteArray()));
+            Iterator<Map.Entry<UUID, Set<DataKey<?>>>> iterator = requests.entrySet().iterator();
+            while (iterator.hasNext()) {
+                // players are never split across messages
+                List<Map.Entry<UUID, Set<DataKey<?>>>> batch = new ArrayList<>();
+                int size = 0;
+                while (iterator.hasNext() && size < MAX_BATCH_SIZE) {
+                    Map.Entry<UUID, Set<DataKey<?>>> entry = iterator.next();
+                    batch.add(entry);
+                    size += entry.getValue().size();
+                }
+
+                MessageWriter output = MessageWriter.get();
+                StringDictionary dictionary = new StringDictionary();
+                DataStreamUtils.writeVarInt(output, batch.size());
+                for (Map.Entry<UUID, Set<DataKey<?>>> entry : batch) {
+                    DataStreamUtils.writeUUID(output, entry.getKey());
+                    DataStreamUtils.writeVarInt(output, entry.getValue().size());
+                    for (DataKey<?> key : entry.getValue()) {
+                        DataStreamUtils.writeDataKey(output, key, dictionary);
+                    }
+                }
+                RedisBungee.getApi().sendChannelMessage(CHANNEL_DATA_REQUEST_BATCH, Base64.getEncoder().encodeToString(output.toByteArray()));
+            }
+            if (legacyProxyPresent.get()) {
+                for (Map.Entry<UUID, Set<DataKey<?>>> entry : requests.entrySet()) {
+                    for (DataKey<?> key : entry.getValue()) {
+                        ByteArrayDataOutput data = ByteStreams.newDataOutput();
+                        DataStreamUtils.writeUUID(data, entry.getKey());
+                        DataStreamUtils.writeDataKey(data, key);
+                        RedisBungee.getApi().sendChannelMessage(CHANNEL_DATA_REQUEST, Base64.getEncoder().encodeToString(data.toByteArray()));
+                    }
+                }
+            }
             redisBungeeAPIError = false;
         } catch (RuntimeException ex) {
             if (!redisBungeeAPIError) {
@@ -252,16 +528,65 @@ public class RedisPlayerManager implements Listener, PlayerProvider {
         }
     }
 
-    private <T> void updateData(UUID uuid, DataKey<T> key, T value) {
+    @SuppressWarnings("unchecked")
+    private void flushUpdates() {
+        Map<UUID, Map<DataKey<?>, Object>> updates;
+        synchronized (pendingUpdates) {
+            if (pendingUpdates.isEmpty()) {
+                return;
+            }
+            updates = new LinkedHashMap<>(pendingUpdates);
+            pendingUpdates.clear();
+            pendingUpdateCount = 0;
+        }
         try {
-            ByteArrayDataOutput data = ByteStreams.newDataOutput();
-            DataStreamUtils.writeUUID(data, uuid);
-            DataStreamUtils.writeDataKey(data, key);
-            data.writeBoolean(value == null);
-            if (value != null) {
-                typeRegistry.getTypeAdapter(key.getType()).write(data, value);
+            Iterator<Map.Entry<UUID, Map<DataKey<?>, Object>>> iterator = updates.entrySet().iterator();
+            while (iterator.hasNext()) {
+                // players are never split across messages
+                List<Map.Entry<UUID, Map<DataKey<?>, Object>>> batch = new ArrayList<>();
+                int size = 0;
+                while (iterator.hasNext() && size < MAX_BATCH_SIZE) {
+                    Map.Entry<UUID, Map<DataKey<?>, Object>> entry = iterator.next();
+                    batch.add(entry);
+                    size += entry.getValue().size();
+                }
+
+                MessageWriter output = MessageWriter.get();
+                StringDictionary dictionary = new StringDictionary();
+                DataStreamUtils.writeVarInt(output, batch.size());
+                for (Map.Entry<UUID, Map<DataKey<?>, Object>> entry : batch) {
+                    DataStreamUtils.writeUUID(output, entry.getKey());
+                    DataStreamUtils.writeVarInt(output, entry.getValue().size());
+                    for (Map.Entry<DataKey<?>, Object> update : entry.getValue().entrySet()) {
+                        DataKey<Object> key = (DataKey<Object>) update.getKey();
+                        DataStreamUtils.writeDataKey(output, key, dictionary);
+                        output.writeBoolean(update.getValue() == null);
+                        if (update.getValue() != null) {
+                            ByteArrayDataOutput value = ByteStreams.newDataOutput();
+                            typeRegistry.getTypeAdapter(key.getType()).write(value, update.getValue());
+                            byte[] bytes = value.toByteArray();
+                            DataStreamUtils.writeVarInt(output, bytes.length);
+                            output.write(bytes);
+                        }
+                    }
+                }
+                RedisBungee.getApi().sendChannelMessage(CHANNEL_DATA_UPDATE_BATCH, Base64.getEncoder().encodeToString(output.toByteArray()));
+            }
+            if (legacyProxyPresent.get()) {
+                for (Map.Entry<UUID, Map<DataKey<?>, Object>> entry : updates.entrySet()) {
+                    for (Map.Entry<DataKey<?>, Object> update : entry.getValue().entrySet()) {
+                        DataKey<Object> key = (DataKey<Object>) update.getKey();
+                        ByteArrayDataOutput data = ByteStreams.newDataOutput();
+                        DataStreamUtils.writeUUID(data, entry.getKey());
+                        DataStreamUtils.writeDataKey(data, key);
+                        data.writeBoolean(update.getValue() == null);
+                        if (update.getValue() != null) {
+                            typeRegistry.getTypeAdapter(key.getType()).write(data, update.getValue());
+                        }
+                        RedisBungee.getApi().sendChannelMessage(CHANNEL_DATA_UPDATE, Base64.getEncoder().encodeToString(data.toByteArray()));
+                    }
+                }
             }
-            RedisBungee.getApi().sendChannelMessage(CHANNEL_DATA_UPDATE, Base64.getEncoder().encodeToString(data.toByteArray()));
         } catch (RuntimeException ex) {
             BungeeTabListPlus.getInstance().getLogger().log(Level.WARNING, "RedisBungee Error", ex);
         } catch (Throwable th) {
@@ -269,6 +594,16 @@ public class RedisPlayerManager implements Listener, PlayerProvider {
         }
     }
 
+    private static final class NetworkEvent {
+        private final long sequence;
+        private final boolean joined;
+
+        private NetworkEvent(long sequence, boolean joined) {
+            this.sequence = sequence;
+            this.joined = joined;
+        }
+    }
+
     private class DataChangeListener implements Runnable {
         private final Player player;
         private final DataKey<Object> dataKey;
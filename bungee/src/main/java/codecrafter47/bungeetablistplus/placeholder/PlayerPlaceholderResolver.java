@@ -20,6 +20,7 @@ package codecrafter47.bungeetablistplus.placeholder;
 import codecrafter47.bungeetablistplus.cache.Cache;
 import codecrafter47.bungeetablistplus.common.BTLPDataKeys;
 import codecrafter47.bungeetablistplus.data.BTLPBungeeDataKeys;
+import codecrafter47.bungeetablistplus.util.PrefixTrie;
 import de.codecrafter47.data.api.DataKey;
 import de.codecrafter47.data.api.TypeToken;
 import de.codecrafter47.data.bukkit.api.BukkitData;
@@ -46,7 +47,7 @@ public class PlayerPlaceholderResolver extends AbstractPlayerPlaceholderResolver
     private final ServerPlaceholderResolver serverPlaceholderResolver;
     private final Cache cache;
 
-    private final Set<String> placeholderAPIPluginPrefixes = Collections.synchronizedSet(new HashSet<>());
+    private final PrefixTrie placeholderAPIPluginPrefixes = new PrefixTrie();
     private final Map<String, DataKey<String>> bridgeCustomPlaceholderDataKeys = Collections.synchronizedMap(new HashMap<>());
     private final Map<String, DataKey<String>> customPlaceholderDataKeys = Collections.synchronizedMap(new HashMap<>());
 
@@ -210,26 +211,18 @@ public class PlayerPlaceholderResolver extends AbstractPlayerPlaceholderResolver
                 } else if (bridgeCustomPlaceholderDataKeys.containsKey(id)) {
                     DataKey<String> dataKey = bridgeCustomPlaceholderDataKeys.get(id);
                     result = builder.acquireData(new PlayerPlaceholderDataProviderSupplier<>(TypeToken.STRING, dataKey, (player, replacement) -> replacement), TypeToken.STRING);
-                } else {
-                    for (String prefix : placeholderAPIPluginPrefixes) {
-                        if (id.length() >= prefix.length() && id.substring(0, prefix.length()).equalsIgnoreCase(prefix)) {
-                            id = args.remove(0).getText();
-                            val resolver = create(BTLPDataKeys.createPlaceholderAPIDataKey("%" + id + "%"));
-                            addPlaceholder(id, resolver);
-                            return resolver.resolve(builder, args, tcc);
-                        }
-                    }
+                } else if (placeholderAPIPluginPrefixes.containsPrefixOf(id)) {
+                    id = args.remove(0).getText();
+                    val resolver = create(BTLPDataKeys.createPlaceholderAPIDataKey("%" + id + "%"));
+                    addPlaceholder(id, resolver);
+                    return resolver.resolve(builder, args, tcc);
                 }
                 if (result == null) {
                     // prevent errors because bridge information has not been synced yet
-                    if (cache.getCustomPlaceholdersBridge().contains(id)) {
+                    if (cache.isCustomPlaceholderBridge(id)) {
                         result = builder.acquireData(new PlayerPlaceholderDataProviderSupplier<>(TypeToken.STRING, BTLPDataKeys.createThirdPartyVariableDataKey(id), (player, replacement) -> replacement), TypeToken.STRING);
-                    } else {
-                        for (String prefix : cache.getPAPIPrefixes()) {
-                            if (id.length() >= prefix.length() && id.substring(0, prefix.length()).equalsIgnoreCase(prefix)) {
-                                result = builder.acquireData(new PlayerPlaceholderDataProviderSupplier<>(TypeToken.STRING, BTLPDataKeys.createPlaceholderAPIDataKey("%" + id + "%"), (player, replacement) -> replacement), TypeToken.STRING);
-                            }
-                        }
+                    } else if (cache.hasPAPIPrefix(id)) {
+                        result = builder.acquireData(new PlayerPlaceholderDataProviderSupplier<>(TypeToken.STRING, BTLPDataKeys.createPlaceholderAPIDataKey("%" + id + "%"), (player, replacement) -> replacement), TypeToken.STRING);
                     }
                 }
                 if (result != null) {
@@ -241,16 +234,26 @@ public class PlayerPlaceholderResolver extends AbstractPlayerPlaceholderResolver
         }
     }
 
-    public void addPlaceholderAPIPluginPrefixes(Collection<String> prefixes) {
-        placeholderAPIPluginPrefixes.addAll(prefixes);
+    /**
+     * @return {@code true} if at least one of the prefixes is new
+     */
+    public boolean addPlaceholderAPIPluginPrefixes(Collection<String> prefixes) {
+        boolean changed = false;
+        for (String prefix : prefixes) {
+            changed |= placeholderAPIPluginPrefixes.add(prefix);
+        }
+        return changed;
     }
 
     public void addCustomPlaceholderDataKey(String id, DataKey<String> dataKey) {
         customPlaceholderDataKeys.put(id.toLowerCase(), dataKey);
     }
 
-    public void addBridgeCustomPlaceholderDataKey(String id, DataKey<String> dataKey) {
-        bridgeCustomPlaceholderDataKeys.put(id.toLowerCase(), dataKey);
+    /**
+     * @return {@code true} if the placeholder is new
+     */
+    public boolean addBridgeCustomPlaceholderDataKey(String id, DataKey<String> dataKey) {
+        return bridgeCustomPlaceholderDataKeys.put(id.toLowerCase(), dataKey) == null;
     }
 
     private static class PermissionDataProvider extends AbstractActiveElement<Runnable> implements PlaceholderDataProvider<Context, Boolean>, ExpressionUpdateListener {
@@ -81,7 +81,10 @@ public class ServerPlaceholderResolver extends AbstractDataHolderPlaceholderReso
         customPlaceholderServerDataKeys.put(id.toLowerCase(), dataKey);
     }
 
-    public void addBridgeCustomPlaceholderServerDataKey(String id, DataKey<String> dataKey) {
-        bridgeCustomPlaceholderServerDataKeys.put(id.toLowerCase(), dataKey);
+    /**
+     * @return {@code true} if the placeholder is new
+     */
+    public boolean addBridgeCustomPlaceholderServerDataKey(String id, DataKey<String> dataKey) {
+        return bridgeCustomPlaceholderServerDataKeys.put(id.toLowerCase(), dataKey) == null;
     }
 }
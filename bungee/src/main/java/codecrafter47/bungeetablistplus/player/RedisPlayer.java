@@ -20,7 +20,6 @@ package codecrafter47.bungeetablistplus.player;
 import codecrafter47.bungeetablistplus.BungeeTabListPlus;
 import codecrafter47.bungeetablistplus.data.NullDataHolder;
 import codecrafter47.bungeetablistplus.data.TrackingDataCache;
-import de.codecrafter47.data.api.DataCache;
 import de.codecrafter47.data.api.DataHolder;
 import de.codecrafter47.data.api.DataKey;
 import de.codecrafter47.data.bungee.api.BungeeData;
@@ -31,7 +30,7 @@ import java.util.UUID;
 
 public class RedisPlayer extends AbstractPlayer {
     @Getter
-    private final DataCache data = new TrackingDataCache() {
+    private final TrackingDataCache data = new TrackingDataCache() {
 
         @Override
         protected <T> void addActiveKey(DataKey<T> key) {
@@ -17,6 +17,8 @@
 
 package codecrafter47.bungeetablistplus.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import de.codecrafter47.bungeetablistplus.bungee.compat.PropertyUtil;
 import de.codecrafter47.taboverlay.Icon;
 import de.codecrafter47.taboverlay.ProfileProperty;
@@ -26,12 +28,18 @@ import net.md_5.bungee.api.connection.ProxiedPlayer;
 import net.md_5.bungee.connection.LoginResult;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 @UtilityClass
 public class IconUtil {
 
     private static final boolean USE_PROTOCOL_PROPERTY_TYPE;
 
+    // keyed by the property array of the login profile, which is replaced by plugins changing the skin
+    private static final Cache<Object, Icon> LOGIN_PROFILE_ICON_CACHE = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
     static {
         boolean classPresent = false;
         try {
@@ -63,18 +71,23 @@ public class IconUtil {
     public Icon getIconFromPlayer(ProxiedPlayer player) {
         LoginResult loginResult = ((UserConnection) player).getPendingConnection().getLoginProfile();
         if (loginResult != null) {
-            String[][] properties;
-            if(USE_PROTOCOL_PROPERTY_TYPE) {
-                properties = Property119Handler.getProperties(loginResult);
+            Object[] rawProperties;
+            if (USE_PROTOCOL_PROPERTY_TYPE) {
+                rawProperties = Property119Handler.getRawProperties(loginResult);
             } else {
-                properties = PropertyUtil.getProperties(loginResult);
+                rawProperties = PropertyUtil.getRawProperties(loginResult);
             }
-            if (properties.length != 0) {
-                for (String[] s : properties) {
-                    if (s[0].equals("textures")) {
-                        return new Icon(new ProfileProperty(s[0], s[1], s[2]));
+            if (rawProperties != null) {
+                Icon icon = LOGIN_PROFILE_ICON_CACHE.getIfPresent(rawProperties);
+                if (icon == null) {
+                    icon = getIconFromLoginResult(loginResult);
+                    if (icon != null) {
+                        LOGIN_PROFILE_ICON_CACHE.put(rawProperties, icon);
                     }
                 }
+                if (icon != null) {
+                    return icon;
+                }
             }
         }
         if ((player.getUniqueId().hashCode() & 1) == 1) {
@@ -83,4 +96,19 @@ public class IconUtil {
             return Icon.DEFAULT_STEVE;
         }
     }
+
+    @Nullable
+    private Icon getIconFromLoginResult(LoginResult loginResult) {
+        if (USE_PROTOCOL_PROPERTY_TYPE) {
+            ProfileProperty property = Property119Handler.getTextureProperty(loginResult);
+            return property != null ? new Icon(property) : null;
+        }
+        String[][] properties = PropertyUtil.getProperties(loginResult);
+        for (String[] s : properties) {
+            if (s[0].equals("textures")) {
+                return new Icon(new ProfileProperty(s[0], s[1], s[2]));
+            }
+        }
+        return null;
+    }
 }
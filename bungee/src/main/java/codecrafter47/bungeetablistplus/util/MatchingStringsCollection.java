@@ -18,51 +18,65 @@
 package codecrafter47.bungeetablistplus.util;
 
 import codecrafter47.bungeetablistplus.BungeeTabListPlus;
-import it.unimi.dsi.fastutil.objects.Object2BooleanMap;
-import it.unimi.dsi.fastutil.objects.Object2BooleanOpenHashMap;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
-import java.util.stream.Collectors;
 
+/**
+ * Immutable set of regular expressions. Instances are safe to use from multiple threads, to change the patterns
+ * replace the instance.
+ */
 public class MatchingStringsCollection {
 
-    private final List<String> patterns;
-    private final Object2BooleanMap<String> cache = new Object2BooleanOpenHashMap<>();
+    private static final Pattern REGEX_META_CHARACTERS = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+
+    // patterns without meta characters only match themselves
+    private final Set<String> literals;
+    private final List<Pattern> patterns;
+    private final LoadingCache<String, Boolean> cache = CacheBuilder.newBuilder()
+            .maximumSize(1024)
+            .build(CacheLoader.from(this::compute));
 
     public MatchingStringsCollection(List<String> patterns) {
-        this.patterns = patterns.stream()
-                .filter(regex -> {
-                    try {
-                        Pattern.compile(regex);
-                        return true;
-                    } catch (PatternSyntaxException e) {
-                        BungeeTabListPlus.getInstance().getLogger().log(Level.WARNING, "Illegal regex", e);
-                        return false;
-                    }
-                }).collect(Collectors.toList());
+        ImmutableSet.Builder<String> literals = ImmutableSet.builder();
+        ImmutableList.Builder<Pattern> compiledPatterns = ImmutableList.builder();
+        for (String regex : patterns) {
+            if (!REGEX_META_CHARACTERS.matcher(regex).find()) {
+                literals.add(regex);
+                continue;
+            }
+            try {
+                compiledPatterns.add(Pattern.compile(regex));
+            } catch (PatternSyntaxException e) {
+                BungeeTabListPlus.getInstance().getLogger().log(Level.WARNING, "Illegal regex", e);
+            }
+        }
+        this.literals = literals.build();
+        this.patterns = compiledPatterns.build();
     }
 
     public boolean contains(String s) {
-        if (cache.containsKey(s)) {
-            return cache.getBoolean(s);
-        } else {
-            boolean r = compute(s);
-            cache.put(s, r);
-            return r;
+        if (literals.contains(s)) {
+            return true;
+        }
+        if (patterns.isEmpty()) {
+            return false;
         }
+        return cache.getUnchecked(s);
     }
 
     private boolean compute(String s) {
-        for (String pattern : patterns) {
-            try {
-                if (s.matches(pattern)) {
-                    return true;
-                }
-            } catch (PatternSyntaxException e) {
-                e.printStackTrace();
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(s).matches()) {
+                return true;
             }
         }
         return false;
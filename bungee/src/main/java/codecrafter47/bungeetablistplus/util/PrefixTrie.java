@@ -0,0 +1,118 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.util;
+
+import it.unimi.dsi.fastutil.chars.Char2ObjectOpenHashMap;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Case-insensitive multiset of strings, supporting lookups in time proportional to the length of the query.
+ * <p>
+ * Strings added multiple times need to be removed the same number of times. All methods are thread-safe.
+ */
+public class PrefixTrie {
+
+    private final Node root = new Node();
+
+    /**
+     * @return {@code true} if {@code s} has not been contained before
+     */
+    public synchronized boolean add(@Nonnull String s) {
+        Node node = root;
+        for (int i = 0; i < s.length(); i++) {
+            char c = Character.toLowerCase(s.charAt(i));
+            if (node.children == null) {
+                node.children = new Char2ObjectOpenHashMap<>(2);
+            }
+            Node child = node.children.get(c);
+            if (child == null) {
+                node.children.put(c, child = new Node());
+            }
+            node = child;
+        }
+        return node.count++ == 0;
+    }
+
+    public synchronized void remove(@Nonnull String s) {
+        Node[] path = new Node[s.length() + 1];
+        Node node = path[0] = root;
+        for (int i = 0; i < s.length(); i++) {
+            node = node.getChild(Character.toLowerCase(s.charAt(i)));
+            if (node == null) {
+                return;
+            }
+            path[i + 1] = node;
+        }
+        if (node.count == 0) {
+            return;
+        }
+        node.count--;
+        // prune nodes which are no longer needed
+        for (int i = s.length(); i > 0 && path[i].isEmpty(); i--) {
+            path[i - 1].children.remove(Character.toLowerCase(s.charAt(i - 1)));
+            if (path[i - 1].children.isEmpty()) {
+                path[i - 1].children = null;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        root.children = null;
+        root.count = 0;
+    }
+
+    /**
+     * @return whether {@code s} has been added
+     */
+    public synchronized boolean contains(@Nonnull String s) {
+        Node node = root;
+        for (int i = 0; i < s.length() && node != null; i++) {
+            node = node.getChild(Character.toLowerCase(s.charAt(i)));
+        }
+        return node != null && node.count > 0;
+    }
+
+    /**
+     * @return whether {@code s} starts with any of the strings which have been added
+     */
+    public synchronized boolean containsPrefixOf(@Nonnull String s) {
+        Node node = root;
+        for (int i = 0; ; i++) {
+            if (node.count > 0) {
+                return true;
+            }
+            if (i == s.length() || null == (node = node.getChild(Character.toLowerCase(s.charAt(i))))) {
+                return false;
+            }
+        }
+    }
+
+    private static final class Node {
+        private Char2ObjectOpenHashMap<Node> children;
+        private int count;
+
+        private Node getChild(char c) {
+            return children != null ? children.get(c) : null;
+        }
+
+        private boolean isEmpty() {
+            return count == 0 && children == null;
+        }
+    }
+}
@@ -1,5 +1,11 @@
 package codecrafter47.bungeetablistplus.util;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.hash.Hasher;
+import de.codecrafter47.taboverlay.Icon;
+import de.codecrafter47.taboverlay.ProfileProperty;
 import net.md_5.bungee.connection.LoginResult;
 import net.md_5.bungee.protocol.Property;
 import net.md_5.bungee.protocol.packet.PlayerListItem;
@@ -7,6 +13,14 @@ import net.md_5.bungee.protocol.packet.PlayerListItem;
 import java.util.Arrays;
 
 public class Property119Handler {
+
+    private static final Property[] EMPTY_PROPERTIES = new Property[0];
+
+    // weak keys are compared by identity, the arrays are shared by all packets containing the icon and must not be modified
+    private static final LoadingCache<Icon, Property[]> ICON_PROPERTIES_CACHE = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(CacheLoader.from((Icon icon) -> toProperties(icon.getTextureProperty())));
+
     public static String[][] getProperties(PlayerListItem.Item item) {
         return Arrays.stream(item.getProperties()).map(prop -> new String[]{prop.getName(), prop.getValue(), prop.getSignature()}).toArray(String[][]::new);
     }
@@ -18,4 +32,59 @@ public class Property119Handler {
     public static void setProperties(PlayerListItem.Item item, String[][] properties) {
         item.setProperties(Arrays.stream(properties).map(array -> new Property(array[0], array[1], array.length >= 3 ? array[2] : null)).toArray(Property[]::new));
     }
+
+    public static void setProperties(PlayerListItem.Item item, Icon icon) {
+        item.setProperties(ICON_PROPERTIES_CACHE.getUnchecked(icon));
+    }
+
+    /**
+     * Copies the properties of the login profile to the item without converting them.
+     */
+    public static void setProperties(PlayerListItem.Item item, LoginResult loginResult) {
+        item.setProperties(loginResult.getProperties());
+    }
+
+    /**
+     * Adds the properties of the item to the hash.
+     */
+    public static void putProperties(Hasher hasher, PlayerListItem.Item item) {
+        Property[] properties = item.getProperties();
+        hasher.putInt(properties != null ? properties.length : -1);
+        if (properties != null) {
+            for (Property property : properties) {
+                putString(hasher, property.getName());
+                putString(hasher, property.getValue());
+                putString(hasher, property.getSignature());
+            }
+        }
+    }
+
+    private static void putString(Hasher hasher, String s) {
+        if (s == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(s.length());
+            hasher.putUnencodedChars(s);
+        }
+    }
+
+    static Object[] getRawProperties(LoginResult loginResult) {
+        return loginResult.getProperties();
+    }
+
+    static ProfileProperty getTextureProperty(LoginResult loginResult) {
+        for (Property property : loginResult.getProperties()) {
+            if (property.getName().equals("textures")) {
+                return new ProfileProperty(property.getName(), property.getValue(), property.getSignature());
+            }
+        }
+        return null;
+    }
+
+    private static Property[] toProperties(ProfileProperty textureProperty) {
+        if (textureProperty == null) {
+            return EMPTY_PROPERTIES;
+        }
+        return new Property[]{new Property(textureProperty.getName(), textureProperty.getValue(), textureProperty.isSigned() ? textureProperty.getSignature() : null)};
+    }
 }
@@ -0,0 +1,172 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CacheTest {
+
+    private static final Logger LOGGER = Logger.getLogger(CacheTest.class.getName());
+
+    private static final List<String> PREFIXES = Arrays.asList("player_", "vault_", "server_");
+    private static final List<String> PLACEHOLDERS = Arrays.asList("balance", "Gr\u00fc\u00dfe \u2122", "");
+    private static final List<String> SERVER_PLACEHOLDERS = Collections.singletonList("tps");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        File file = new File(folder.getRoot(), "cache.dat");
+        createCache(file).save();
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        Cache cache = Cache.load(file, LOGGER);
+        assertEquals(PREFIXES, cache.getPAPIPrefixes("lobby"));
+        assertEquals(PLACEHOLDERS, cache.getCustomPlaceholdersBridge("lobby"));
+        assertEquals(SERVER_PLACEHOLDERS, cache.getCustomServerPlaceholdersBridge("lobby"));
+        assertEquals(Collections.emptyList(), cache.getPAPIPrefixes("survival"));
+        assertNull(cache.getCustomPlaceholdersBridge("survival"));
+    }
+
+    @Test
+    public void testMissingFile() {
+        Cache cache = Cache.load(new File(folder.getRoot(), "missing.dat"), LOGGER);
+        assertNull(cache.getPAPIPrefixes("lobby"));
+    }
+
+    @Test
+    public void testTruncatedTail() throws IOException {
+        File file = new File(folder.getRoot(), "cache.dat");
+        createCache(file).save();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        // the damaged record is the last one written, all others are still there
+        assertEquals(3, countRecords(Cache.load(file, LOGGER)));
+    }
+
+    @Test
+    public void testFlippedChecksum() throws IOException {
+        File file = new File(folder.getRoot(), "cache.dat");
+        createCache(file).save();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // magic, version and length of the first record precede its checksum
+            raf.seek(12);
+            int b = raf.read();
+            raf.seek(12);
+            raf.write(b ^ 0xFF);
+        }
+
+        assertEquals(3, countRecords(Cache.load(file, LOGGER)));
+    }
+
+    @Test
+    public void testInvalidHeader() throws IOException {
+        File file = new File(folder.getRoot(), "cache.dat");
+        createCache(file).save();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(0);
+            raf.writeInt(0);
+        }
+
+        assertEquals(0, countRecords(Cache.load(file, LOGGER)));
+    }
+
+    @Test
+    public void testSaveAfterLoad() throws IOException {
+        File file = new File(folder.getRoot(), "cache.dat");
+        createCache(file).save();
+
+        Cache cache = Cache.load(file, LOGGER);
+        cache.updatePAPIPrefixes("survival", Collections.singletonList("essentials_"));
+        cache.save();
+
+        cache = Cache.load(file, LOGGER);
+        assertEquals(PREFIXES, cache.getPAPIPrefixes("lobby"));
+        assertEquals(Collections.singletonList("essentials_"), cache.getPAPIPrefixes("survival"));
+        assertEquals(4, countRecords(cache));
+    }
+
+    @Test
+    public void testLookupOnlyConsidersRegisteredServers() {
+        Cache cache = createCache(new File(folder.getRoot(), "cache.dat"));
+        assertFalse(cache.hasPAPIPrefix("player_name"));
+        assertFalse(cache.isCustomPlaceholderBridge("balance"));
+
+        cache.setRegisteredServers(Arrays.asList("lobby", "survival"));
+        assertTrue(cache.hasPAPIPrefix("player_name"));
+        assertTrue(cache.hasPAPIPrefix("VAULT_eco_balance"));
+        assertFalse(cache.hasPAPIPrefix("playe"));
+        assertTrue(cache.isCustomPlaceholderBridge("balance"));
+        assertFalse(cache.isCustomPlaceholderBridge("bal"));
+        assertTrue(cache.getCustomServerPlaceholdersBridge().contains("tps"));
+
+        // entries reported by two servers are kept until both are gone
+        cache.updatePAPIPrefixes("survival", Collections.singletonList("player_"));
+        cache.updatePAPIPrefixes("lobby", Collections.singletonList("vault_"));
+        assertTrue(cache.hasPAPIPrefix("player_name"));
+        assertFalse(cache.hasPAPIPrefix("server_name"));
+
+        cache.setRegisteredServers(Collections.singletonList("lobby"));
+        assertFalse(cache.hasPAPIPrefix("player_name"));
+        assertTrue(cache.hasPAPIPrefix("vault_eco_balance"));
+        assertTrue(cache.isCustomPlaceholderBridge("balance"));
+
+        cache.setRegisteredServers(Collections.emptyList());
+        assertFalse(cache.hasPAPIPrefix("vault_eco_balance"));
+        assertFalse(cache.isCustomPlaceholderBridge("balance"));
+        assertFalse(cache.getCustomServerPlaceholdersBridge().contains("tps"));
+        assertEquals(Collections.singletonList("vault_"), cache.getPAPIPrefixes("lobby"));
+    }
+
+    private static Cache createCache(File file) {
+        Cache cache = Cache.load(file, LOGGER);
+        cache.updatePAPIPrefixes("lobby", PREFIXES);
+        cache.updatePAPIPrefixes("survival", Collections.emptyList());
+        cache.updateCustomPlaceholdersBridge("lobby", PLACEHOLDERS);
+        cache.updateCustomServerPlaceholdersBridge("lobby", SERVER_PLACEHOLDERS);
+        return cache;
+    }
+
+    private static int countRecords(Cache cache) {
+        int records = 0;
+        for (String server : Arrays.asList("lobby", "survival")) {
+            records += cache.getPAPIPrefixes(server) != null ? 1 : 0;
+            records += cache.getCustomPlaceholdersBridge(server) != null ? 1 : 0;
+            records += cache.getCustomServerPlaceholdersBridge(server) != null ? 1 : 0;
+        }
+        return records;
+    }
+}
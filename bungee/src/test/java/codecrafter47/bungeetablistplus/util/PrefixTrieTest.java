@@ -0,0 +1,93 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrefixTrieTest {
+
+    @Test
+    public void testContainsPrefixOf() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("vault_");
+        trie.add("Player_");
+
+        assertTrue(trie.containsPrefixOf("vault_prefix"));
+        assertTrue(trie.containsPrefixOf("vault_"));
+        assertTrue(trie.containsPrefixOf("player_name"));
+        assertTrue(trie.containsPrefixOf("PLAYER_NAME"));
+        assertFalse(trie.containsPrefixOf("vault"));
+        assertFalse(trie.containsPrefixOf("server_name"));
+        assertFalse(trie.containsPrefixOf(""));
+    }
+
+    @Test
+    public void testContains() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("abc");
+
+        assertTrue(trie.contains("abc"));
+        assertTrue(trie.contains("ABC"));
+        assertFalse(trie.contains("ab"));
+        assertFalse(trie.contains("abcd"));
+    }
+
+    @Test
+    public void testRemove() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("ab");
+        trie.add("abc");
+        trie.add("abc");
+
+        trie.remove("abc");
+        assertTrue(trie.contains("abc"));
+
+        trie.remove("abc");
+        assertFalse(trie.contains("abc"));
+        assertTrue(trie.contains("ab"));
+
+        trie.remove("xyz");
+        trie.remove("ab");
+        assertFalse(trie.contains("ab"));
+        assertFalse(trie.containsPrefixOf("abc"));
+    }
+
+    @Test
+    public void testAddReturnsWhetherNew() {
+        PrefixTrie trie = new PrefixTrie();
+
+        assertTrue(trie.add("abc"));
+        assertFalse(trie.add("ABC"));
+        assertTrue(trie.add("ab"));
+    }
+
+    @Test
+    public void testEmptyPrefix() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("");
+
+        assertTrue(trie.containsPrefixOf("anything"));
+        assertTrue(trie.contains(""));
+
+        trie.clear();
+        assertFalse(trie.containsPrefixOf("anything"));
+    }
+}
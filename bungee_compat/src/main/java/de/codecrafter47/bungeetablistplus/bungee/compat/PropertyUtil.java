@@ -14,6 +14,14 @@ public class PropertyUtil {
         return Arrays.stream(loginResult.getProperties()).map(prop -> new String[]{prop.getName(), prop.getValue(), prop.getSignature()}).toArray(String[][]::new);
     }
 
+    public static Object[] getRawProperties(LoginResult loginResult) {
+        return loginResult.getProperties();
+    }
+
+    public static String[][] getProperties(PlayerListItem.Item item) {
+        return item.getProperties();
+    }
+
     public static void setProperties(PlayerListItem.Item item, String[][] properties) {
         item.setProperties(properties);
     }
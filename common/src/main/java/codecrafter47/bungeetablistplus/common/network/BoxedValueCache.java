@@ -0,0 +1,75 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.common.network;
+
+/**
+ * Boxes primitive values received over the network, reusing instances for small and round values.
+ * <p>
+ * Values like ping, health, food level or whole block coordinates mostly fall into the cached range, so decoding
+ * them does not allocate.
+ */
+final class BoxedValueCache {
+
+    private static final int INT_LOW = -128;
+    private static final int INT_HIGH = 1024;
+    private static final Integer[] INTS = new Integer[INT_HIGH - INT_LOW];
+
+    // multiples of 0.5 in [0, HALVES / 2)
+    private static final int HALVES = 512;
+    private static final Float[] FLOATS = new Float[HALVES];
+    private static final Double[] DOUBLES = new Double[HALVES];
+
+    static {
+        for (int i = 0; i < INTS.length; i++) {
+            INTS[i] = i + INT_LOW;
+        }
+        for (int i = 0; i < HALVES; i++) {
+            FLOATS[i] = i / 2.0f;
+            DOUBLES[i] = i / 2.0;
+        }
+    }
+
+    private BoxedValueCache() {
+    }
+
+    static Integer valueOf(int value) {
+        if (value >= INT_LOW && value < INT_HIGH) {
+            return INTS[value - INT_LOW];
+        }
+        return value;
+    }
+
+    static Float valueOf(float value) {
+        float halves = value * 2;
+        int index = (int) halves;
+        // the sign check keeps -0.0 out of the cache, it is not equal to 0.0 once boxed
+        if (index == halves && index >= 0 && index < HALVES && Float.floatToRawIntBits(value) >= 0) {
+            return FLOATS[index];
+        }
+        return value;
+    }
+
+    static Double valueOf(double value) {
+        double halves = value * 2;
+        int index = (int) halves;
+        if (index == halves && index >= 0 && index < HALVES && Double.doubleToRawLongBits(value) >= 0) {
+            return DOUBLES[index];
+        }
+        return value;
+    }
+}
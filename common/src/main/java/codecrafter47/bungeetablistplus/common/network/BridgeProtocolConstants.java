@@ -23,7 +23,16 @@ public class BridgeProtocolConstants {
 
     public static final String CHANNEL = "btlp:bridge";
 
-    public static final int VERSION = 5;
+    public static final int VERSION = 6;
+
+    /**
+     * The oldest protocol version this implementation can talk to. The version used by a connection is the lower
+     * of the versions announced by both ends in the introduce message.
+     * <p>
+     * Version 6 writes sequence numbers, sizes and net ids as VarInt, sends data keys using a {@link StringDictionary}
+     * and encodes numeric values using {@link DeltaCodec}.
+     */
+    public static final int MINIMUM_COMPATIBLE_VERSION = 5;
 
     public static final int MESSAGE_ID_INTRODUCE = 0x00;
 
@@ -34,4 +43,27 @@ public class BridgeProtocolConstants {
     public static final int MESSAGE_ID_ACK_SERVER = 0x81;
     public static final int MESSAGE_ID_REQUEST_DATA_SERVER = 0x82;
     public static final int MESSAGE_ID_UPDATE_DATA_SERVER = 0x83;
+    /**
+     * Sent instead of empty data updates to show that a connection is still alive. Keep alive messages are not
+     * confirmed by the receiver. Since version 6.
+     */
+    public static final int MESSAGE_ID_KEEP_ALIVE_SERVER = 0x84;
+
+    /**
+     * Time in milliseconds after which a keep alive message is sent if there was no other message.
+     */
+    public static final int KEEP_ALIVE_INTERVAL = 10000;
+
+    /**
+     * Maximum number of unconfirmed messages per stream. Once reached, senders hold back further updates and send the
+     * then current state in a single message when the window opens again.
+     */
+    public static final int MAX_MESSAGES_IN_FLIGHT = 8;
+
+    /**
+     * Initial time in milliseconds before unconfirmed messages are sent again. Doubles with every retransmission up to
+     * {@link #RETRANSMIT_TIMEOUT_MAX} and is reset once the receiver confirms a message.
+     */
+    public static final int RETRANSMIT_TIMEOUT_MIN = 1000;
+    public static final int RETRANSMIT_TIMEOUT_MAX = 16000;
 }
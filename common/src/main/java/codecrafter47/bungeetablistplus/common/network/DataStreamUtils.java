@@ -48,18 +48,39 @@ public class DataStreamUtils {
         }
     }
 
+    public static void writeDataKey(DataOutput output, DataKey<?> key, StringDictionary dictionary) throws IOException {
+        dictionary.write(output, key.getId());
+        String parameter = key.getParameter();
+        output.writeBoolean(parameter != null);
+        if (parameter != null) {
+            dictionary.write(output, parameter);
+        }
+    }
+
     public static DataKey<?> readDataKey(DataInput input, DataKeyRegistry registry) throws IOException {
         return readDataKey(input, registry, null);
     }
 
+    public static DataKey<?> readDataKey(DataInput input, StringDictionary dictionary, DataKeyRegistry registry, Consumer<String> missingDataKeyHandler) throws IOException {
+        String id = dictionary.read(input);
+        boolean hasParameter = input.readBoolean();
+        String parameter = hasParameter ? dictionary.read(input) : null;
+
+        return getDataKey(registry, id, parameter, missingDataKeyHandler);
+    }
+
     public static DataKey<?> readDataKey(DataInput input, DataKeyRegistry registry, Consumer<String> missingDataKeyHandler) throws IOException {
         String id = input.readUTF();
         boolean hasParameter = input.readBoolean();
         String parameter = hasParameter ? input.readUTF() : null;
 
+        return getDataKey(registry, id, parameter, missingDataKeyHandler);
+    }
+
+    private static DataKey<?> getDataKey(DataKeyRegistry registry, String id, String parameter, Consumer<String> missingDataKeyHandler) {
         DataKey<?> key = registry.getKeyByIdentifier(id);
         if (key != null) {
-            return hasParameter ? key.withParameter(parameter) : key;
+            return parameter != null ? key.withParameter(parameter) : key;
         } else {
             if (missingDataKeyHandler != null) {
                 missingDataKeyHandler.accept(id);
@@ -67,4 +88,44 @@ public class DataStreamUtils {
             return null;
         }
     }
+
+    public static void writeVarInt(DataOutput output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    public static int readVarInt(DataInput input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarInt too long");
+    }
+
+    /**
+     * Writes an int using the encoding of the given bridge protocol version. Starting with version 6 ints are
+     * written as VarInt.
+     */
+    public static void writeInt(DataOutput output, int value, int protocolVersion) throws IOException {
+        if (protocolVersion >= 6) {
+            writeVarInt(output, value);
+        } else {
+            output.writeInt(value);
+        }
+    }
+
+    public static int readInt(DataInput input, int protocolVersion) throws IOException {
+        if (protocolVersion >= 6) {
+            return readVarInt(input);
+        } else {
+            return input.readInt();
+        }
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.common.network;
+
+import de.codecrafter47.data.api.TypeToken;
+
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Encodes numeric values relative to the previous value sent for the same data key.
+ * <p>
+ * Integers are written as the zig-zag encoded VarInt of the difference. Floating point values are written as the
+ * xor of their bit patterns, with leading and trailing zero bytes stripped and their count stored in a header byte.
+ * Values which changed only slightly or which are round numbers therefore only take a few bytes.
+ */
+public final class DeltaCodec {
+
+    private DeltaCodec() {
+    }
+
+    public static boolean supports(TypeToken<?> type) {
+        return getTypeAdapter(type) != null;
+    }
+
+    /**
+     * Get the adapter used for delta encoding values of the given type. Callers encoding many values of the same
+     * data key should resolve it once.
+     *
+     * @return the adapter or null if values of that type are not delta encoded
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static <T> DeltaTypeAdapter<T> getTypeAdapter(TypeToken<T> type) {
+        if (TypeToken.INTEGER.equals(type)) {
+            return (DeltaTypeAdapter<T>) IntTypeAdapter.INSTANCE;
+        } else if (TypeToken.DOUBLE.equals(type)) {
+            return (DeltaTypeAdapter<T>) DoubleTypeAdapter.INSTANCE;
+        } else if (TypeToken.FLOAT.equals(type)) {
+            return (DeltaTypeAdapter<T>) FloatTypeAdapter.INSTANCE;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static void write(DataOutput output, TypeToken<?> type, Object value, @Nullable Object previous) throws IOException {
+        DeltaTypeAdapter<Object> adapter = getTypeAdapter((TypeToken<Object>) type);
+        if (adapter == null) {
+            throw new IllegalArgumentException("Unsupported type " + type);
+        }
+        adapter.writeDelta(output, value, previous);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Object read(DataInput input, TypeToken<?> type, @Nullable Object previous) throws IOException {
+        DeltaTypeAdapter<Object> adapter = getTypeAdapter((TypeToken<Object>) type);
+        if (adapter == null) {
+            throw new IllegalArgumentException("Unsupported type " + type);
+        }
+        return adapter.readDelta(input, previous);
+    }
+
+    static void writeXor(DataOutput output, long xor, int width) throws IOException {
+        int leading = xor == 0 ? width : (Long.numberOfLeadingZeros(xor) - (64 - width * 8)) / 8;
+        int trailing = xor == 0 ? 0 : Long.numberOfTrailingZeros(xor) / 8;
+        output.writeByte(leading << 4 | trailing);
+        for (int i = width - leading - 1; i >= trailing; i--) {
+            output.writeByte((int) (xor >>> (i * 8)));
+        }
+    }
+
+    static long readXor(DataInput input, int width) throws IOException {
+        int header = input.readUnsignedByte();
+        int leading = header >>> 4;
+        int trailing = header & 0x0F;
+        if (leading + trailing > width) {
+            throw new IOException("Malformed delta header " + header);
+        }
+        long xor = 0;
+        for (int i = width - leading - 1; i >= trailing; i--) {
+            xor |= (long) input.readUnsignedByte() << (i * 8);
+        }
+        return xor;
+    }
+}
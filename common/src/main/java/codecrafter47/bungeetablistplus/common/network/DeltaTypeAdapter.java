@@ -0,0 +1,34 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.common.network;
+
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * {@link TypeAdapter} which can additionally encode a value relative to the previous value sent for the same data
+ * key, see {@link DeltaCodec}.
+ */
+public interface DeltaTypeAdapter<T> extends TypeAdapter<T> {
+
+    T readDelta(DataInput input, @Nullable T previous) throws IOException;
+
+    void writeDelta(DataOutput output, T object, @Nullable T previous) throws IOException;
+}
@@ -0,0 +1,74 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.common.network;
+
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Type adapter for doubles. The primitive methods can be used directly by callers which know the type; the boxed
+ * methods reuse cached instances for small round values.
+ */
+public final class DoubleTypeAdapter implements DeltaTypeAdapter<Double> {
+
+    public static final DoubleTypeAdapter INSTANCE = new DoubleTypeAdapter();
+
+    private DoubleTypeAdapter() {
+    }
+
+    public double readDouble(DataInput input) throws IOException {
+        return input.readDouble();
+    }
+
+    public void writeDouble(DataOutput output, double value) throws IOException {
+        output.writeDouble(value);
+    }
+
+    /**
+     * Reads the xor of the bit patterns of the value and the previous value.
+     */
+    public double readDelta(DataInput input, double previous) throws IOException {
+        return Double.longBitsToDouble(DeltaCodec.readXor(input, 8) ^ Double.doubleToLongBits(previous));
+    }
+
+    public void writeDelta(DataOutput output, double value, double previous) throws IOException {
+        DeltaCodec.writeXor(output, Double.doubleToLongBits(value) ^ Double.doubleToLongBits(previous), 8);
+    }
+
+    @Override
+    public Double read(DataInput input) throws IOException {
+        return BoxedValueCache.valueOf(readDouble(input));
+    }
+
+    @Override
+    public void write(DataOutput output, Double object) throws IOException {
+        writeDouble(output, object);
+    }
+
+    @Override
+    public Double readDelta(DataInput input, @Nullable Double previous) throws IOException {
+        return BoxedValueCache.valueOf(readDelta(input, previous != null ? previous : 0.0));
+    }
+
+    @Override
+    public void writeDelta(DataOutput output, Double object, @Nullable Double previous) throws IOException {
+        writeDelta(output, object.doubleValue(), previous != null ? previous : 0.0);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.common.network;
+
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Type adapter for floats. The primitive methods can be used directly by callers which know the type; the boxed
+ * methods reuse cached instances for small round values.
+ */
+public final class FloatTypeAdapter implements DeltaTypeAdapter<Float> {
+
+    public static final FloatTypeAdapter INSTANCE = new FloatTypeAdapter();
+
+    private FloatTypeAdapter() {
+    }
+
+    public float readFloat(DataInput input) throws IOException {
+        return input.readFloat();
+    }
+
+    public void writeFloat(DataOutput output, float value) throws IOException {
+        output.writeFloat(value);
+    }
+
+    /**
+     * Reads the xor of the bit patterns of the value and the previous value.
+     */
+    public float readDelta(DataInput input, float previous) throws IOException {
+        return Float.intBitsToFloat((int) DeltaCodec.readXor(input, 4) ^ Float.floatToIntBits(previous));
+    }
+
+    public void writeDelta(DataOutput output, float value, float previous) throws IOException {
+        DeltaCodec.writeXor(output, (Float.floatToIntBits(value) ^ Float.floatToIntBits(previous)) & 0xFFFFFFFFL, 4);
+    }
+
+    @Override
+    public Float read(DataInput input) throws IOException {
+        return BoxedValueCache.valueOf(readFloat(input));
+    }
+
+    @Override
+    public void write(DataOutput output, Float object) throws IOException {
+        writeFloat(output, object);
+    }
+
+    @Override
+    public Float readDelta(DataInput input, @Nullable Float previous) throws IOException {
+        return BoxedValueCache.valueOf(readDelta(input, previous != null ? previous : 0f));
+    }
+
+    @Override
+    public void writeDelta(DataOutput output, Float object, @Nullable Float previous) throws IOException {
+        writeDelta(output, object.floatValue(), previous != null ? previous : 0f);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.common.network;
+
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Type adapter for ints. The primitive methods can be used directly by callers which know the type; the boxed
+ * methods reuse cached instances for small values.
+ */
+public final class IntTypeAdapter implements DeltaTypeAdapter<Integer> {
+
+    public static final IntTypeAdapter INSTANCE = new IntTypeAdapter();
+
+    private IntTypeAdapter() {
+    }
+
+    public int readInt(DataInput input) throws IOException {
+        return input.readInt();
+    }
+
+    public void writeInt(DataOutput output, int value) throws IOException {
+        output.writeInt(value);
+    }
+
+    /**
+     * Reads the zig-zag encoded VarInt of the difference to the previous value.
+     */
+    public int readDelta(DataInput input, int previous) throws IOException {
+        int zigZag = DataStreamUtils.readVarInt(input);
+        int delta = (zigZag >>> 1) ^ -(zigZag & 1);
+        return previous + delta;
+    }
+
+    public void writeDelta(DataOutput output, int value, int previous) throws IOException {
+        int delta = value - previous;
+        DataStreamUtils.writeVarInt(output, (delta << 1) ^ (delta >> 31));
+    }
+
+    @Override
+    public Integer read(DataInput input) throws IOException {
+        return BoxedValueCache.valueOf(readInt(input));
+    }
+
+    @Override
+    public void write(DataOutput output, Integer object) throws IOException {
+        writeInt(output, object);
+    }
+
+    @Override
+    public Integer readDelta(DataInput input, @Nullable Integer previous) throws IOException {
+        return BoxedValueCache.valueOf(readDelta(input, previous != null ? previous : 0));
+    }
+
+    @Override
+    public void writeDelta(DataOutput output, Integer object, @Nullable Integer previous) throws IOException {
+        writeDelta(output, object.intValue(), previous != null ? previous : 0);
+    }
+}
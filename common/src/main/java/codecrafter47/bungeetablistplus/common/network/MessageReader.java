@@ -0,0 +1,191 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.common.network;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link DataInput} reading a bridge message directly from a {@link ByteBuffer}.
+ * <p>
+ * Unlike a {@link DataInputStream} on top of a {@link java.io.ByteArrayInputStream} this does not copy the message
+ * and one instance per thread is reused for all messages, see {@link #of(ByteBuffer)}. The buffer is only accessed
+ * until the next call to {@link #of(ByteBuffer)} on the same thread, so callers must finish reading the message
+ * before returning control to the network layer.
+ */
+public final class MessageReader implements DataInput {
+
+    private static final ThreadLocal<MessageReader> INSTANCE = ThreadLocal.withInitial(MessageReader::new);
+
+    private ByteBuffer buffer;
+
+    private MessageReader() {
+    }
+
+    /**
+     * Get the reader of the current thread, positioned at the start of the given buffer. The position of the buffer
+     * is advanced while reading.
+     */
+    public static MessageReader of(ByteBuffer buffer) {
+        MessageReader reader = INSTANCE.get();
+        reader.buffer = buffer;
+        return reader;
+    }
+
+    public int remaining() {
+        return buffer.remaining();
+    }
+
+    private void require(int bytes) throws EOFException {
+        if (buffer.remaining() < bytes) {
+            throw new EOFException();
+        }
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        require(len);
+        buffer.get(b, off, len);
+    }
+
+    @Override
+    public int skipBytes(int n) {
+        int skipped = Math.max(0, Math.min(n, buffer.remaining()));
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readUnsignedByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        try {
+            return buffer.get();
+        } catch (BufferUnderflowException e) {
+            throw new EOFException();
+        }
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        require(2);
+        return buffer.getShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        require(2);
+        return buffer.getChar();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        require(4);
+        return buffer.getInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        require(8);
+        return buffer.getLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        require(4);
+        return buffer.getFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        require(8);
+        return buffer.getDouble();
+    }
+
+    /**
+     * Reads a line of bytes, each converted to a char, like {@link DataInputStream#readLine()}.
+     *
+     * @return the line without the line terminator, or null if the end of the buffer has been reached
+     */
+    @Override
+    public String readLine() {
+        if (!buffer.hasRemaining()) {
+            return null;
+        }
+        StringBuilder line = new StringBuilder();
+        while (buffer.hasRemaining()) {
+            int c = buffer.get() & 0xFF;
+            if (c == '\n') {
+                break;
+            }
+            if (c == '\r') {
+                if (buffer.hasRemaining() && buffer.get(buffer.position()) == '\n') {
+                    buffer.get();
+                }
+                break;
+            }
+            line.append((char) c);
+        }
+        return line.toString();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        int length = readUnsignedShort();
+        require(length);
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int start = buffer.arrayOffset() + buffer.position();
+            // fast path for ASCII, which covers nearly all keys and most values
+            int i = 0;
+            while (i < length && array[start + i] >= 0) {
+                i++;
+            }
+            if (i == length) {
+                buffer.position(buffer.position() + length);
+                return new String(array, start, length, StandardCharsets.ISO_8859_1);
+            }
+        }
+        // let DataInputStream handle the modified UTF-8 encoding, it re-reads the length prefix
+        buffer.position(buffer.position() - 2);
+        return DataInputStream.readUTF(this);
+    }
+}
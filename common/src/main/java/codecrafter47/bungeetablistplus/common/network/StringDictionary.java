@@ -0,0 +1,71 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.common.network;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary of strings sent over a single message stream of the bridge protocol.
+ * <p>
+ * The first time a string is written it is sent in full and assigned the next free index. After that only the
+ * index is sent. Both ends of a stream need to process messages in the same order and clear their dictionary
+ * when the stream is reset.
+ */
+public final class StringDictionary {
+
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    public void write(DataOutput output, String string) throws IOException {
+        Integer index = indices.get(string);
+        if (index != null) {
+            DataStreamUtils.writeVarInt(output, index);
+        } else {
+            index = strings.size();
+            DataStreamUtils.writeVarInt(output, index);
+            output.writeUTF(string);
+            indices.put(string, index);
+            strings.add(string);
+        }
+    }
+
+    public String read(DataInput input) throws IOException {
+        int index = DataStreamUtils.readVarInt(input);
+        if (index < strings.size()) {
+            return strings.get(index);
+        }
+        if (index == strings.size()) {
+            String string = input.readUTF();
+            indices.put(string, index);
+            strings.add(string);
+            return string;
+        }
+        throw new IOException("Unknown dictionary index " + index);
+    }
+
+    public void clear() {
+        indices.clear();
+        strings.clear();
+    }
+}
@@ -30,50 +30,10 @@ import java.util.List;
 public class TypeAdapterRegistry {
 
     public static final TypeAdapterRegistry DEFAULT_TYPE_ADAPTERS = new TypeAdapterRegistry(ImmutableMap.<TypeToken<?>, TypeAdapter<?>>builder()
-            .put(TypeToken.BOOLEAN, new TypeAdapter<Boolean>() {
-                @Override
-                public Boolean read(DataInput input) throws IOException {
-                    return input.readBoolean();
-                }
-
-                @Override
-                public void write(DataOutput output, Boolean object) throws IOException {
-                    output.writeBoolean(object);
-                }
-            })
-            .put(TypeToken.INTEGER, new TypeAdapter<Integer>() {
-                @Override
-                public Integer read(DataInput input) throws IOException {
-                    return input.readInt();
-                }
-
-                @Override
-                public void write(DataOutput output, Integer object) throws IOException {
-                    output.writeInt(object);
-                }
-            })
-            .put(TypeToken.FLOAT, new TypeAdapter<Float>() {
-                @Override
-                public Float read(DataInput input) throws IOException {
-                    return input.readFloat();
-                }
-
-                @Override
-                public void write(DataOutput output, Float object) throws IOException {
-                    output.writeFloat(object);
-                }
-            })
-            .put(TypeToken.DOUBLE, new TypeAdapter<Double>() {
-                @Override
-                public Double read(DataInput input) throws IOException {
-                    return input.readDouble();
-                }
-
-                @Override
-                public void write(DataOutput output, Double object) throws IOException {
-                    output.writeDouble(object);
-                }
-            })
+            .put(TypeToken.BOOLEAN, BooleanTypeAdapter.INSTANCE)
+            .put(TypeToken.INTEGER, IntTypeAdapter.INSTANCE)
+            .put(TypeToken.FLOAT, FloatTypeAdapter.INSTANCE)
+            .put(TypeToken.DOUBLE, DoubleTypeAdapter.INSTANCE)
             .put(TypeToken.STRING, new TypeAdapter<String>() {
                 @Override
                 public String read(DataInput input) throws IOException {
@@ -0,0 +1,108 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.common.network;
+
+import codecrafter47.bungeetablistplus.common.BTLPDataKeys;
+import de.codecrafter47.data.api.DataKey;
+import de.codecrafter47.data.api.DataKeyRegistry;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DataStreamUtilsTest {
+
+    private static final DataKeyRegistry REGISTRY = DataKeyRegistry.of(BTLPDataKeys.class);
+
+    @Test
+    public void testVarInt() throws IOException {
+        int[] values = {0, 1, -1, 127, 128, 16383, 16384, 2097151, 2097152, 268435455, 268435456,
+                Integer.MIN_VALUE, Integer.MAX_VALUE};
+        for (int value : values) {
+            MessageWriter writer = MessageWriter.get();
+            DataStreamUtils.writeVarInt(writer, value);
+            MessageReader reader = MessageReader.of(ByteBuffer.wrap(writer.toByteArray()));
+            assertEquals(value, DataStreamUtils.readVarInt(reader));
+            assertEquals(0, reader.remaining());
+        }
+    }
+
+    @Test
+    public void testVarIntLength() throws IOException {
+        MessageWriter writer = MessageWriter.get();
+        DataStreamUtils.writeVarInt(writer, 127);
+        assertEquals(1, writer.size());
+
+        writer = MessageWriter.get();
+        DataStreamUtils.writeVarInt(writer, -1);
+        assertEquals(5, writer.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testVarIntTooLong() throws IOException {
+        byte[] bytes = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+        DataStreamUtils.readVarInt(MessageReader.of(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    public void testDataKey() throws IOException {
+        DataKey<?> key = BTLPDataKeys.PAPI_REGISTERED_PLACEHOLDER_PLUGINS;
+        DataKey<?> keyWithParameter = BTLPDataKeys.createThirdPartyVariableDataKey("vault_eco_balance");
+
+        MessageWriter writer = MessageWriter.get();
+        DataStreamUtils.writeDataKey(writer, key);
+        DataStreamUtils.writeDataKey(writer, keyWithParameter);
+
+        MessageReader reader = MessageReader.of(ByteBuffer.wrap(writer.toByteArray()));
+        assertEquals(key, DataStreamUtils.readDataKey(reader, REGISTRY));
+        assertEquals(keyWithParameter, DataStreamUtils.readDataKey(reader, REGISTRY));
+        assertEquals(0, reader.remaining());
+    }
+
+    @Test
+    public void testDataKeyWithDictionary() throws IOException {
+        StringDictionary writeDictionary = new StringDictionary();
+        StringDictionary readDictionary = new StringDictionary();
+        DataKey<?> key = BTLPDataKeys.createThirdPartyVariableDataKey("player_ping");
+
+        for (int i = 0; i < 2; i++) {
+            MessageWriter writer = MessageWriter.get();
+            DataStreamUtils.writeDataKey(writer, key, writeDictionary);
+            MessageReader reader = MessageReader.of(ByteBuffer.wrap(writer.toByteArray()));
+            assertEquals(key, DataStreamUtils.readDataKey(reader, readDictionary, REGISTRY, null));
+            assertEquals(0, reader.remaining());
+        }
+    }
+
+    @Test
+    public void testUnknownDataKey() throws IOException {
+        MessageWriter writer = MessageWriter.get();
+        writer.writeUTF("unknown:key");
+        writer.writeBoolean(false);
+
+        List<String> missing = new ArrayList<>();
+        assertNull(DataStreamUtils.readDataKey(MessageReader.of(ByteBuffer.wrap(writer.toByteArray())), REGISTRY, missing::add));
+        assertEquals(1, missing.size());
+        assertEquals("unknown:key", missing.get(0));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.common.network;
+
+import de.codecrafter47.data.api.TypeToken;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class DeltaCodecTest {
+
+    private static final int[] INTS = {0, 1, -1, 127, 128, -128, 65536, Integer.MIN_VALUE, Integer.MAX_VALUE,
+            Integer.MIN_VALUE + 1, Integer.MAX_VALUE - 1};
+
+    private static final double[] DOUBLES = {0.0, -0.0, 1.0, -1.0, 0.1, 20.0, 19.5, Double.NaN,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MIN_VALUE, -Double.MIN_VALUE,
+            Double.MIN_NORMAL / 2, Double.MIN_NORMAL, Double.MAX_VALUE};
+
+    private static final float[] FLOATS = {0.0f, -0.0f, 1.0f, -1.0f, 0.1f, 20.0f, 19.5f, Float.NaN,
+            Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.MIN_VALUE, -Float.MIN_VALUE,
+            Float.MIN_NORMAL / 2, Float.MIN_NORMAL, Float.MAX_VALUE};
+
+    @Test
+    public void testInt() throws IOException {
+        for (int value : INTS) {
+            assertRoundTrip(TypeToken.INTEGER, value, null);
+            for (int previous : INTS) {
+                assertRoundTrip(TypeToken.INTEGER, value, previous);
+            }
+        }
+    }
+
+    @Test
+    public void testDouble() throws IOException {
+        for (double value : DOUBLES) {
+            assertRoundTrip(TypeToken.DOUBLE, value, null);
+            for (double previous : DOUBLES) {
+                assertRoundTrip(TypeToken.DOUBLE, value, previous);
+            }
+        }
+    }
+
+    @Test
+    public void testFloat() throws IOException {
+        for (float value : FLOATS) {
+            assertRoundTrip(TypeToken.FLOAT, value, null);
+            for (float previous : FLOATS) {
+                assertRoundTrip(TypeToken.FLOAT, value, previous);
+            }
+        }
+    }
+
+    @Test
+    public void testUnchangedValueIsSingleByte() throws IOException {
+        assertEquals(1, encode(TypeToken.INTEGER, 20, 20).length);
+        assertEquals(1, encode(TypeToken.DOUBLE, 0.1, 0.1).length);
+        assertEquals(1, encode(TypeToken.FLOAT, Float.NaN, Float.NaN).length);
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformedHeader() throws IOException {
+        DeltaCodec.read(MessageReader.of(ByteBuffer.wrap(new byte[]{(byte) 0x55})), TypeToken.FLOAT, null);
+    }
+
+    private static <T> void assertRoundTrip(TypeToken<T> type, T value, T previous) throws IOException {
+        byte[] bytes = encode(type, value, previous);
+        MessageReader reader = MessageReader.of(ByteBuffer.wrap(bytes));
+        // equals compares the bit patterns of floating point numbers, so this distinguishes 0.0 and -0.0
+        assertEquals("previous: " + previous, value, DeltaCodec.read(reader, type, previous));
+        assertEquals(0, reader.remaining());
+    }
+
+    private static <T> byte[] encode(TypeToken<T> type, T value, T previous) throws IOException {
+        MessageWriter writer = MessageWriter.get();
+        DeltaCodec.write(writer, type, value, previous);
+        return writer.toByteArray();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.common.network;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class MessageReaderTest {
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testReadLineMatchesDataInputStream() throws IOException {
+        String[] inputs = {"", "a", "\n", "\r", "\r\n", "a\nb", "a\r\nb\rc\n\nd", "line\r", "\r\r\n\n", "\u00E4\u00FF"};
+        for (String input : inputs) {
+            byte[] bytes = input.getBytes(StandardCharsets.ISO_8859_1);
+            DataInputStream expected = new DataInputStream(new ByteArrayInputStream(bytes));
+            MessageReader reader = MessageReader.of(ByteBuffer.wrap(bytes));
+            String line;
+            do {
+                line = expected.readLine();
+                assertEquals(input, line, reader.readLine());
+            } while (line != null);
+        }
+    }
+
+    @Test
+    public void testReadLineFollowedByData() throws IOException {
+        MessageWriter writer = MessageWriter.get();
+        writer.writeBytes("first\r\n");
+        writer.writeInt(42);
+        MessageReader reader = MessageReader.of(ByteBuffer.wrap(writer.toByteArray()));
+        assertEquals("first", reader.readLine());
+        assertEquals(42, reader.readInt());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.common.network;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class MessageUTFTest {
+
+    private static final String[] STRINGS = {
+            "",
+            "minecraft:health",
+            "\u0000",
+            "a\u0000b",
+            "\u007F\u0080\u07FF\u0800\uFFFF",
+            "Gr\u00FC\u00DFe, \u2122 \u20AC \u65E5\u672C\u8A9E",
+            "\u00A7aColored \u00A7lText",
+            "\uD83D\uDE00",
+            "\uD800",
+            "a\uDFFFb",
+            "\uDC00\uD800"
+    };
+
+    @Test
+    public void testWriteMatchesDataOutputStream() throws IOException {
+        for (String string : STRINGS) {
+            MessageWriter writer = MessageWriter.get();
+            writer.writeUTF(string);
+            assertArrayEquals(string, writeWithDataOutputStream(string), writer.toByteArray());
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (String string : STRINGS) {
+            byte[] bytes = writeWithDataOutputStream(string);
+            assertRead(string, ByteBuffer.wrap(bytes));
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes).flip();
+            assertRead(string, direct);
+        }
+    }
+
+    @Test
+    public void testReadWithOffset() throws IOException {
+        MessageWriter writer = MessageWriter.get();
+        writer.writeInt(42);
+        writer.writeUTF("abc");
+        writer.writeUTF("Gr\u00FC\u00DFe");
+        byte[] bytes = new byte[writer.size() + 3];
+        System.arraycopy(writer.toByteArray(), 0, bytes, 3, writer.size());
+
+        // the buffer has a non-zero array offset
+        MessageReader reader = MessageReader.of(ByteBuffer.wrap(bytes, 3, bytes.length - 3).slice());
+        assertEquals(42, reader.readInt());
+        assertEquals("abc", reader.readUTF());
+        assertEquals("Gr\u00FC\u00DFe", reader.readUTF());
+        assertEquals(0, reader.remaining());
+    }
+
+    @Test(expected = UTFDataFormatException.class)
+    public void testTooLong() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 32768; i++) {
+            sb.append('\u00E4');
+        }
+        MessageWriter.get().writeUTF(sb.toString());
+    }
+
+    private static void assertRead(String expected, ByteBuffer buffer) throws IOException {
+        MessageReader reader = MessageReader.of(buffer);
+        assertEquals(expected, reader.readUTF());
+        assertEquals(0, reader.remaining());
+    }
+
+    private static byte[] writeWithDataOutputStream(String string) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeUTF(string);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.common.network;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StringDictionaryTest {
+
+    @Test
+    public void testReuseAcrossMessages() throws IOException {
+        StringDictionary writeDictionary = new StringDictionary();
+        StringDictionary readDictionary = new StringDictionary();
+
+        byte[] first = write(writeDictionary, "minecraft:health", "btlp:placeholderAPI", "minecraft:health");
+        byte[] second = write(writeDictionary, "btlp:placeholderAPI", "minecraft:health");
+        byte[] third = write(writeDictionary, "minecraft:level", "minecraft:health");
+
+        assertRead(readDictionary, first, "minecraft:health", "btlp:placeholderAPI", "minecraft:health");
+        // strings known from previous messages are only sent as index
+        assertEquals(2, second.length);
+        assertRead(readDictionary, second, "btlp:placeholderAPI", "minecraft:health");
+        assertRead(readDictionary, third, "minecraft:level", "minecraft:health");
+    }
+
+    @Test
+    public void testClear() throws IOException {
+        StringDictionary writeDictionary = new StringDictionary();
+        StringDictionary readDictionary = new StringDictionary();
+
+        assertRead(readDictionary, write(writeDictionary, "a", "b"), "a", "b");
+
+        writeDictionary.clear();
+        readDictionary.clear();
+
+        byte[] message = write(writeDictionary, "b", "a");
+        assertTrue(message.length > 2);
+        assertRead(readDictionary, message, "b", "a");
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownIndex() throws IOException {
+        StringDictionary writeDictionary = new StringDictionary();
+        write(writeDictionary, "a");
+        byte[] message = write(writeDictionary, "a");
+
+        new StringDictionary().read(MessageReader.of(ByteBuffer.wrap(message)));
+    }
+
+    private static byte[] write(StringDictionary dictionary, String... strings) throws IOException {
+        MessageWriter writer = MessageWriter.get();
+        for (String string : strings) {
+            dictionary.write(writer, string);
+        }
+        return writer.toByteArray();
+    }
+
+    private static void assertRead(StringDictionary dictionary, byte[] message, String... expected) throws IOException {
+        MessageReader reader = MessageReader.of(ByteBuffer.wrap(message));
+        for (String string : expected) {
+            assertEquals(string, dictionary.read(reader));
+        }
+        assertEquals(0, reader.remaining());
+    }
+}
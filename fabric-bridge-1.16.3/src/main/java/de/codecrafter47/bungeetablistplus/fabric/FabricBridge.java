@@ -19,6 +19,7 @@ package de.codecrafter47.bungeetablistplus.fabric;
 
 import codecrafter47.bungeetablistplus.common.BTLPDataKeys;
 import codecrafter47.bungeetablistplus.common.network.BridgeProtocolConstants;
+import codecrafter47.bungeetablistplus.common.network.MessageReader;
 import codecrafter47.bungeetablistplus.common.network.TypeAdapterRegistry;
 import de.codecrafter47.bungeetablistplus.bridge.AbstractBridge;
 import de.codecrafter47.bungeetablistplus.fabric.event.PlayerDisconnectCallback;
@@ -49,10 +50,9 @@ import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.io.ByteArrayInputStream;
 import java.io.DataInput;
-import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -88,10 +88,8 @@ public class FabricBridge implements ModInitializer {
         ServerTickEvents.END_SERVER_TICK.register(this::onTick);
 
         ServerSidePacketRegistry.INSTANCE.register(Identifier.tryParse(BridgeProtocolConstants.CHANNEL), (context, buffer) -> {
-            byte[] data = new byte[buffer.readableBytes()];
-            int readerIndex = buffer.readerIndex();
-            buffer.getBytes(readerIndex, data);
-            onPluginMessage(context.getPlayer(), data);
+            // the buffer is only valid during this callback, onPluginMessage processes the message synchronously
+            onPluginMessage(context.getPlayer(), buffer.nioBuffer());
         });
         PlayerJoinCallback.EVENT.register(player -> bridge.onPlayerConnect(player));
         PlayerDisconnectCallback.EVENT.register(player -> bridge.onPlayerDisconnect(player));
@@ -141,7 +139,12 @@ public class FabricBridge implements ModInitializer {
 
     @SneakyThrows
     public void onPluginMessage(PlayerEntity player, byte[] data) {
-        DataInput input = new DataInputStream(new ByteArrayInputStream(data));
+        onPluginMessage(player, ByteBuffer.wrap(data));
+    }
+
+    @SneakyThrows
+    public void onPluginMessage(PlayerEntity player, ByteBuffer data) {
+        DataInput input = MessageReader.of(data);
         bridge.onMessage((ServerPlayerEntity) player, input);
     }
 
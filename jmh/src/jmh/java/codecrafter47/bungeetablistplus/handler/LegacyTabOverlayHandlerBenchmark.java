@@ -0,0 +1,137 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.handler;
+
+import de.codecrafter47.taboverlay.handler.ContentOperationMode;
+import de.codecrafter47.taboverlay.handler.RectangularTabOverlay;
+import de.codecrafter47.taboverlay.handler.TabOverlayHandle;
+import net.md_5.bungee.protocol.DefinedPacket;
+import net.md_5.bungee.protocol.packet.PlayerListItem;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static codecrafter47.bungeetablistplus.handler.TabOverlayHandlerBenchmark.*;
+
+/**
+ * Benchmarks the hot paths of {@link AbstractLegacyTabOverlayHandler}, used for 1.7 clients.
+ * <p>
+ * Packets are passed to a {@link Blackhole} instead of a player connection, so the results only contain the cost of
+ * computing the packets.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LegacyTabOverlayHandlerBenchmark {
+
+    @State(Scope.Thread)
+    public static class RectangularState {
+        BenchmarkLegacyTabOverlayHandler handler;
+        RectangularTabOverlay tabOverlay;
+        RectangularTabOverlay.Dimension[] sizes;
+        int counter;
+
+        @Setup(Level.Trial)
+        public void setUp(Blackhole blackhole) {
+            handler = new BenchmarkLegacyTabOverlayHandler(blackhole);
+            tabOverlay = handler.enterContentOperationMode(ContentOperationMode.RECTANGULAR);
+            sizes = tabOverlay.getSupportedSizes().toArray(new RectangularTabOverlay.Dimension[0]);
+            tabOverlay.setSize(new RectangularTabOverlay.Dimension(4, 20));
+            counter = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PassThroughState {
+        final PlayerListItem[] packets = new PlayerListItem[2 * PLAYERS];
+        BenchmarkLegacyTabOverlayHandler handler;
+        int counter;
+
+        @Setup(Level.Trial)
+        public void setUp(Blackhole blackhole) {
+            for (int i = 0; i < PLAYERS; i++) {
+                PlayerListItem.Item item = new PlayerListItem.Item();
+                item.setDisplayName(NAMES[i]);
+                item.setPing(i);
+                packets[i] = new PlayerListItem();
+                packets[i].setAction(PlayerListItem.Action.ADD_PLAYER);
+                packets[i].setItems(new PlayerListItem.Item[]{item});
+
+                packets[PLAYERS + i] = new PlayerListItem();
+                packets[PLAYERS + i].setAction(PlayerListItem.Action.REMOVE_PLAYER);
+                packets[PLAYERS + i].setItems(new PlayerListItem.Item[]{item});
+            }
+
+            handler = new BenchmarkLegacyTabOverlayHandler(blackhole);
+            handler.enterContentOperationMode(ContentOperationMode.PASS_TROUGH);
+            counter = 0;
+        }
+    }
+
+    @Benchmark
+    public void fullRewrite(RectangularState state) {
+        int offset = state.counter++ & 1;
+        RectangularTabOverlay tabOverlay = state.tabOverlay;
+        ((TabOverlayHandle.BatchModifiable) tabOverlay).beginBatchModification();
+        try {
+            for (int column = 0; column < 4; column++) {
+                for (int row = 0; row < 20; row++) {
+                    int player = (column * 20 + row + offset) % PLAYERS;
+                    tabOverlay.setSlot(column, row, ICONS[player], TEXTS[player], player);
+                }
+            }
+        } finally {
+            ((TabOverlayHandle.BatchModifiable) tabOverlay).completeBatchModification();
+        }
+    }
+
+    @Benchmark
+    public void singleSlotTextChurn(RectangularState state) {
+        int i = state.counter++ & 0xffff;
+        state.tabOverlay.setText(i & 3, i % 20, TEXTS[i % PLAYERS]);
+    }
+
+    @Benchmark
+    public void resize(RectangularState state) {
+        int i = state.counter;
+        state.counter = (i + 1) % state.sizes.length;
+        state.tabOverlay.setSize(state.sizes[i]);
+    }
+
+    @Benchmark
+    public Object passThrough(PassThroughState state) {
+        int i = state.counter;
+        state.counter = (i + 1) % (2 * PLAYERS);
+        return state.handler.onPlayerListPacket(state.packets[i]);
+    }
+
+    static class BenchmarkLegacyTabOverlayHandler extends AbstractLegacyTabOverlayHandler {
+        private final Blackhole blackhole;
+
+        BenchmarkLegacyTabOverlayHandler(Blackhole blackhole) {
+            super(Logger.getLogger("benchmark"), 80, Runnable::run, false);
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        protected void sendPacket(DefinedPacket packet) {
+            blackhole.consume(packet);
+        }
+    }
+}
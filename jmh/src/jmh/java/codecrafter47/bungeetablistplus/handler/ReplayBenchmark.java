@@ -0,0 +1,381 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.handler;
+
+import codecrafter47.bungeetablistplus.eventlog.EventLogger;
+import codecrafter47.bungeetablistplus.eventlog.Transformer;
+import codecrafter47.bungeetablistplus.protocol.PacketListenerResult;
+import codecrafter47.bungeetablistplus.tablisthandler.logic.TestRealWorldExamples;
+import com.google.gson.Gson;
+import de.codecrafter47.taboverlay.Icon;
+import de.codecrafter47.taboverlay.ProfileProperty;
+import de.codecrafter47.taboverlay.handler.ContentOperationMode;
+import de.codecrafter47.taboverlay.handler.SimpleTabOverlay;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.md_5.bungee.api.ChatColor;
+import net.md_5.bungee.protocol.DefinedPacket;
+import net.md_5.bungee.protocol.packet.PlayerListItem;
+import net.md_5.bungee.protocol.packet.Team;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Replays the event logs recorded from real servers, which {@link TestRealWorldExamples} uses to check correctness,
+ * through {@link TabOverlayHandlerImpl} and {@link LowMemoryTabOverlayHandlerImpl}.
+ * <p>
+ * One operation is one recorded event, applied to every simulated viewer. Packets received from the server are
+ * unwrapped once per viewer, like BungeeCord decodes them once per connection. Besides events per second the
+ * benchmark reports the emitted packets per second (divide by the score to get packets per event) and, at the end of
+ * each iteration, the 99th percentile of the time spent in a single update of the tab list. Run with {@code -prof gc}
+ * to get the bytes allocated per event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReplayBenchmark {
+
+    private static final Gson gson = new Gson();
+
+    @Param({"default", "lowMemory"})
+    public String handler;
+
+    @Param({"1", "50"})
+    public int viewers;
+
+    private final LongArrayList updateLatencies = new LongArrayList();
+    private final Executor timingExecutor = task -> {
+        long start = System.nanoTime();
+        task.run();
+        updateLatencies.add(System.nanoTime() - start);
+    };
+
+    private ReplayEvent[] events;
+    private Viewer[] activeViewers;
+    private int nextEvent;
+    private long packets;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void loadEventLogs() throws IOException {
+        List<ReplayEvent> events = new ArrayList<>();
+        for (String fileName : (Iterable<String>) TestRealWorldExamples.testData()) {
+            InputStream in = ReplayBenchmark.class.getClassLoader().getResourceAsStream(fileName);
+            if (in == null) {
+                continue;
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        events.add(parse(line));
+                    }
+                }
+            }
+        }
+        this.events = events.toArray(new ReplayEvent[0]);
+        this.activeViewers = new Viewer[0];
+        this.nextEvent = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportUpdateLatency() {
+        if (!updateLatencies.isEmpty()) {
+            long[] latencies = updateLatencies.toLongArray();
+            Arrays.sort(latencies);
+            long p99 = latencies[(int) Math.min(latencies.length - 1, Math.ceil(latencies.length * 0.99) - 1)];
+            System.out.printf("update() p99: %.1f us (%d updates)%n", p99 / 1000.0, latencies.length);
+            updateLatencies.clear();
+        }
+    }
+
+    @Benchmark
+    public long replay() {
+        ReplayEvent event = events[nextEvent];
+        nextEvent = (nextEvent + 1) % events.length;
+        event.apply(this);
+        return packets;
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class PacketCounter {
+        public long packets;
+    }
+
+    @Benchmark
+    public void replayCountingPackets(PacketCounter counter) {
+        long before = packets;
+        replay();
+        counter.packets += packets - before;
+    }
+
+    private static ReplayEvent parse(String line) {
+        String[] tokens = line.split(" ", 2);
+        switch (tokens[0]) {
+            case "connect":
+                String fakeClientId = gson.fromJson(tokens[1], String.class);
+                return benchmark -> benchmark.connect(fakeClientId);
+            case "disconnect":
+                return benchmark -> benchmark.activeViewers = new Viewer[0];
+            case "pli":
+                Transformer.PlayerListPacketWrapper packet = gson.fromJson(tokens[1], Transformer.PlayerListPacketWrapper.class);
+                return benchmark -> {
+                    for (Viewer viewer : benchmark.activeViewers) {
+                        viewer.onPlayerListPacket(packet);
+                    }
+                };
+            case "team":
+                Team team = gson.fromJson(tokens[1], Team.class);
+                return benchmark -> {
+                    for (Viewer viewer : benchmark.activeViewers) {
+                        viewer.onTeamPacket(team);
+                    }
+                };
+            case "serverSwitch":
+                return benchmark -> {
+                    for (Viewer viewer : benchmark.activeViewers) {
+                        viewer.handler.onServerSwitch(false);
+                    }
+                };
+            case "passThrough":
+                boolean passThrough = gson.fromJson(tokens[1], Boolean.class);
+                return benchmark -> {
+                    for (Viewer viewer : benchmark.activeViewers) {
+                        viewer.setPassThrough(passThrough);
+                    }
+                };
+            case "size":
+                int size = gson.fromJson(tokens[1], Integer.class);
+                return benchmark -> {
+                    for (Viewer viewer : benchmark.activeViewers) {
+                        viewer.setSize(size);
+                    }
+                };
+            case "set":
+                EventLogger.SetData data = gson.fromJson(tokens[1], EventLogger.SetData.class);
+                String text = ChatColor.stripColor(data.text);
+                return benchmark -> {
+                    for (Viewer viewer : benchmark.activeViewers) {
+                        viewer.setSlot(data.index, data.skin, text, data.ping);
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("Unknown token " + tokens[0]);
+        }
+    }
+
+    private void connect(String fakeClientId) {
+        activeViewers = new Viewer[viewers];
+        for (int i = 0; i < viewers; i++) {
+            activeViewers[i] = new Viewer(fakeClientId, UUID.randomUUID());
+        }
+    }
+
+    private interface ReplayEvent {
+        void apply(ReplayBenchmark benchmark);
+    }
+
+    /**
+     * The state of a single simulated player, mirrors the logic used to record the event logs.
+     */
+    private class Viewer {
+        private final String fakeClientId;
+        private final UUID uuid;
+        private final AbstractTabOverlayHandler handler;
+
+        private final UUID[] slotUuid = new UUID[80];
+        private final Icon[] slotIcon = new Icon[80];
+        private final String[] slotText = new String[80];
+        private final int[] slotPing = new int[80];
+        private SimpleTabOverlay tabOverlay;
+        private int size = 0;
+
+        private Viewer(String fakeClientId, UUID uuid) {
+            this.fakeClientId = fakeClientId;
+            this.uuid = uuid;
+            this.handler = "lowMemory".equals(ReplayBenchmark.this.handler)
+                    ? new ReplayLowMemoryTabOverlayHandler(timingExecutor, uuid)
+                    : new ReplayTabOverlayHandler(timingExecutor, uuid);
+            Arrays.fill(slotIcon, Icon.DEFAULT_STEVE);
+            Arrays.fill(slotText, "");
+            tabOverlay = handler.enterContentOperationMode(ContentOperationMode.SIMPLE);
+            handler.enterContentOperationMode(ContentOperationMode.PASS_TROUGH);
+            handler.onServerSwitch(false);
+        }
+
+        private void onPlayerListPacket(Transformer.PlayerListPacketWrapper wrapper) {
+            PlayerListItem packet = wrapper.unwrap();
+            for (PlayerListItem.Item item : packet.getItems()) {
+                if (fakeClientId.equals(item.getUuid().toString())) {
+                    item.setUuid(uuid);
+                }
+            }
+            if (handler.onPlayerListPacket(packet) != PacketListenerResult.CANCEL) {
+                packets++;
+            }
+        }
+
+        private void onTeamPacket(Team team) {
+            Team copy = new Team();
+            copy.setName(team.getName());
+            copy.setMode(team.getMode());
+            copy.setDisplayName(team.getDisplayName());
+            copy.setPrefix(team.getPrefix());
+            copy.setSuffix(team.getSuffix());
+            copy.setNameTagVisibility(team.getNameTagVisibility());
+            copy.setCollisionRule(team.getCollisionRule());
+            copy.setColor(team.getColor());
+            copy.setFriendlyFire(team.getFriendlyFire());
+            copy.setPlayers(team.getPlayers() == null ? null : team.getPlayers().clone());
+            if (handler.onTeamPacket(copy) != PacketListenerResult.CANCEL) {
+                packets++;
+            }
+        }
+
+        private void setPassThrough(boolean passThrough) {
+            if (passThrough) {
+                handler.enterContentOperationMode(ContentOperationMode.PASS_TROUGH);
+            } else {
+                tabOverlay = handler.enterContentOperationMode(ContentOperationMode.SIMPLE);
+                setSize(size);
+            }
+        }
+
+        private void setSize(int size) {
+            this.size = size;
+            tabOverlay.setSize(size);
+            for (int i = 0; i < size; i++) {
+                tabOverlay.setSlot(i, slotUuid[i], slotIcon[i], slotText[i], slotPing[i]);
+            }
+        }
+
+        private void setSlot(int index, Transformer.PlayerSkinWrapper skin, String text, int ping) {
+            UUID owner = skin.owner == null || skin.owner.equals("null") ? null
+                    : fakeClientId.equals(skin.owner) ? uuid : UUID.fromString(skin.owner);
+            slotUuid[index] = owner;
+            slotIcon[index] = new Icon(new ProfileProperty(skin.skin, skin.skin, skin.skin));
+            slotText[index] = text;
+            slotPing[index] = ping;
+            if (index < size) {
+                tabOverlay.setSlot(index, owner, slotIcon[index], text, ping);
+            }
+        }
+    }
+
+    private class ReplayTabOverlayHandler extends TabOverlayHandlerImpl {
+
+        private ReplayTabOverlayHandler(Executor executor, UUID viewerUuid) {
+            super(Logger.getLogger("replay"), executor, viewerUuid, null, false, false, false);
+        }
+
+        @Override
+        protected void sendPacket(DefinedPacket packet) {
+            packets++;
+        }
+
+        @Override
+        protected void sendSharedPacket(PlayerListItem packet) {
+            packets++;
+        }
+
+        @Override
+        protected long getUpdateInterval() {
+            return 0;
+        }
+
+        @Override
+        protected void onUpdateStart() {
+        }
+
+        @Override
+        protected void onUpdateComplete() {
+        }
+
+        @Override
+        protected boolean isExperimentalTabCompleteSmileys() {
+            return false;
+        }
+
+        @Override
+        protected boolean isExperimentalTabCompleteFixForTabSize80() {
+            return true;
+        }
+
+        @Override
+        protected boolean isUsingAltRespawn() {
+            return false;
+        }
+    }
+
+    private class ReplayLowMemoryTabOverlayHandler extends LowMemoryTabOverlayHandlerImpl {
+
+        private ReplayLowMemoryTabOverlayHandler(Executor executor, UUID viewerUuid) {
+            super(Logger.getLogger("replay"), executor, viewerUuid, null, false, false, false);
+        }
+
+        @Override
+        protected void sendPacket(DefinedPacket packet) {
+            packets++;
+        }
+
+        @Override
+        protected void sendSharedPacket(PlayerListItem packet) {
+            packets++;
+        }
+
+        @Override
+        protected long getUpdateInterval() {
+            return 0;
+        }
+
+        @Override
+        protected void onUpdateStart() {
+        }
+
+        @Override
+        protected void onUpdateComplete() {
+        }
+
+        @Override
+        protected boolean isExperimentalTabCompleteSmileys() {
+            return false;
+        }
+
+        @Override
+        protected boolean isExperimentalTabCompleteFixForTabSize80() {
+            return true;
+        }
+
+        @Override
+        protected boolean isUsingAltRespawn() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ *     Copyright (C) 2020 Florian Stober
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package codecrafter47.bungeetablistplus.handler;
+
+import codecrafter47.bungeetablistplus.util.Property119Handler;
+import de.codecrafter47.taboverlay.Icon;
+import de.codecrafter47.taboverlay.ProfileProperty;
+import de.codecrafter47.taboverlay.handler.ContentOperationMode;
+import de.codecrafter47.taboverlay.handler.RectangularTabOverlay;
+import de.codecrafter47.taboverlay.handler.TabOverlayHandle;
+import net.md_5.bungee.protocol.DefinedPacket;
+import net.md_5.bungee.protocol.packet.PlayerListItem;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Benchmarks the hot paths of {@link AbstractTabOverlayHandler}.
+ * <p>
+ * Packets are passed to a {@link Blackhole} instead of a player connection, so the results only contain the cost of
+ * computing the packets.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TabOverlayHandlerBenchmark {
+
+    static final int PLAYERS = 160;
+
+    static final String[] NAMES = new String[PLAYERS];
+    static final UUID[] UUIDS = new UUID[PLAYERS];
+    static final String[] TEXTS = new String[PLAYERS];
+    static final Icon[] ICONS = new Icon[PLAYERS];
+
+    static {
+        for (int i = 0; i < PLAYERS; i++) {
+            NAMES[i] = String.format("Player %3d", i);
+            UUIDS[i] = UUID.nameUUIDFromBytes(("OfflinePlayer:" + NAMES[i]).getBytes(StandardCharsets.UTF_8));
+            TEXTS[i] = "&" + Integer.toHexString(i % 16) + NAMES[i];
+            ICONS[i] = i % 3 == 0 ? Icon.DEFAULT_STEVE
+                    : i % 3 == 1 ? Icon.DEFAULT_ALEX
+                    : new Icon(new ProfileProperty("textures", "texture" + i, "signature" + i));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RectangularState {
+        BenchmarkTabOverlayHandler handler;
+        RectangularTabOverlay tabOverlay;
+        RectangularTabOverlay.Dimension[] sizes;
+        int counter;
+
+        @Setup(Level.Trial)
+        public void setUp(Blackhole blackhole) {
+            handler = new BenchmarkTabOverlayHandler(blackhole);
+            tabOverlay = handler.enterContentOperationMode(ContentOperationMode.RECTANGULAR);
+            sizes = tabOverlay.getSupportedSizes().toArray(new RectangularTabOverlay.Dimension[0]);
+            tabOverlay.setSize(new RectangularTabOverlay.Dimension(4, 20));
+            counter = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PassThroughState {
+        final PlayerListItem[] packets = new PlayerListItem[2 * PLAYERS];
+        BenchmarkTabOverlayHandler handler;
+        int counter;
+
+        @Setup(Level.Trial)
+        public void setUp(Blackhole blackhole) {
+            for (int i = 0; i < PLAYERS; i++) {
+                PlayerListItem.Item item = new PlayerListItem.Item();
+                item.setUuid(UUIDS[i]);
+                item.setUsername(NAMES[i]);
+                Property119Handler.setProperties(item, new String[0][]);
+                item.setDisplayName("{\"text\":\"" + NAMES[i] + "\"}");
+                item.setPing(i);
+                item.setGamemode(0);
+                packets[i] = new PlayerListItem();
+                packets[i].setAction(PlayerListItem.Action.ADD_PLAYER);
+                packets[i].setItems(new PlayerListItem.Item[]{item});
+
+                PlayerListItem.Item removeItem = new PlayerListItem.Item();
+                removeItem.setUuid(UUIDS[i]);
+                packets[PLAYERS + i] = new PlayerListItem();
+                packets[PLAYERS + i].setAction(PlayerListItem.Action.REMOVE_PLAYER);
+                packets[PLAYERS + i].setItems(new PlayerListItem.Item[]{removeItem});
+            }
+
+            handler = new BenchmarkTabOverlayHandler(blackhole);
+            handler.enterContentOperationMode(ContentOperationMode.PASS_TROUGH);
+            counter = 0;
+        }
+    }
+
+    @Benchmark
+    public void fullRewrite(RectangularState state) {
+        int offset = state.counter++ & 1;
+        RectangularTabOverlay tabOverlay = state.tabOverlay;
+        ((TabOverlayHandle.BatchModifiable) tabOverlay).beginBatchModification();
+        try {
+            for (int column = 0; column < 4; column++) {
+                for (int row = 0; row < 20; row++) {
+                    int player = (column * 20 + row + offset) % PLAYERS;
+                    tabOverlay.setSlot(column, row, ICONS[player], TEXTS[player], player);
+                }
+            }
+        } finally {
+            ((TabOverlayHandle.BatchModifiable) tabOverlay).completeBatchModification();
+        }
+    }
+
+    @Benchmark
+    public void singleSlotTextChurn(RectangularState state) {
+        int i = state.counter++ & 0xffff;
+        state.tabOverlay.setText(i & 3, i % 20, TEXTS[i % PLAYERS]);
+    }
+
+    @Benchmark
+    public void resize(RectangularState state) {
+        int i = state.counter;
+        state.counter = (i + 1) % state.sizes.length;
+        state.tabOverlay.setSize(state.sizes[i]);
+    }
+
+    @Benchmark
+    public Object passThrough(PassThroughState state) {
+        int i = state.counter;
+        state.counter = (i + 1) % (2 * PLAYERS);
+        return state.handler.onPlayerListPacket(state.packets[i]);
+    }
+
+    static class BenchmarkTabOverlayHandler extends AbstractTabOverlayHandler {
+        private final Blackhole blackhole;
+
+        BenchmarkTabOverlayHandler(Blackhole blackhole) {
+            super(Logger.getLogger("benchmark"), Runnable::run, UUID.randomUUID(), false, true, false);
+            this.blackhole = blackhole;
+            this.active = true;
+        }
+
+        @Override
+        protected void sendPacket(DefinedPacket packet) {
+            blackhole.consume(packet);
+        }
+
+        @Override
+        protected boolean isExperimentalTabCompleteSmileys() {
+            return false;
+        }
+
+        @Override
+        protected boolean isExperimentalTabCompleteFixForTabSize80() {
+            return false;
+        }
+    }
+}